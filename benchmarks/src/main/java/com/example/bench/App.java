@@ -0,0 +1,261 @@
+package com.example.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Accès aux classes de l'application, qui sont dans le paquetage par défaut : JMH exige un
+ * paquetage nommé pour les benchmarks et Java interdit d'importer depuis le paquetage par
+ * défaut. Les handles sont des constantes {@code static final}, que le JIT inline.
+ */
+final class App {
+    private static final MethodHandle NEW_GRAPH;
+    private static final MethodHandle NODES;
+    private static final MethodHandle NODE_NAME;
+    private static final MethodHandle DIJKSTRA;
+    private static final MethodHandle GET_PATH;
+    private static final MethodHandle PATH_EDGES;
+    private static final MethodHandle CALCULATE_WEIGHT;
+    private static final MethodHandle SET_SOLVER;
+    private static final MethodHandle SET_CACHE;
+    private static final MethodHandle NEW_CACHE;
+    private static final MethodHandle EDGES;
+    private static final MethodHandle TREE;
+    private static final MethodHandle UPDATE_WEIGHTS;
+    private static final MethodHandle SET_STRATEGY;
+    private static final MethodHandle METRICS;
+    private static final MethodHandle RESET_METRICS;
+    private static final MethodHandle ENABLE_METRICS;
+    private static final MethodHandle SETTLED_PER_SEARCH;
+    private static final MethodHandle COMPILED;
+    private static final MethodHandle BUILD_HIERARCHY;
+    private static final MethodHandle USE_HIERARCHY;
+    private static final MethodHandle NEW_PICKER;
+    private static final MethodHandle PICK;
+    private static final MethodHandle PLAN_TOTAL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> graph = Class.forName("GraphData");
+            Class<?> node = Class.forName("Node");
+            Class<?> solver = Class.forName("TourSolver");
+            NEW_GRAPH = lookup.findConstructor(graph, MethodType.methodType(void.class, String.class));
+            NODES = lookup.findGetter(graph, "nodes", List.class);
+            NODE_NAME = lookup.findGetter(node, "name", String.class);
+            DIJKSTRA = lookup.findVirtual(graph, "dijkstra", MethodType.methodType(List.class, node, node));
+            GET_PATH = lookup.findVirtual(graph, "getPath", MethodType.methodType(List.class, node, node, List.class));
+            PATH_EDGES = lookup.findVirtual(graph, "pathEdges", MethodType.methodType(BitSet.class, List.class));
+            CALCULATE_WEIGHT = lookup.findVirtual(graph, "calculateWeight", MethodType.methodType(int.class, List.class));
+            SET_SOLVER = lookup.findSetter(graph, "solver", solver);
+            Class<?> cache = Class.forName("RouteCache");
+            SET_CACHE = lookup.findSetter(graph, "cache", cache);
+            NEW_CACHE = lookup.findConstructor(cache, MethodType.methodType(void.class, int.class, int.class));
+            EDGES = lookup.findGetter(graph, "edges", List.class);
+            TREE = lookup.findVirtual(graph, "tree", MethodType.methodType(Class.forName("ShortestPathTree"), node));
+            UPDATE_WEIGHTS = lookup.findVirtual(graph, "updateWeights",
+                    MethodType.methodType(void.class, int[].class, int[].class));
+            Class<?> strategy = Class.forName("SearchStrategy");
+            SET_STRATEGY = lookup.findSetter(graph, "strategy", strategy);
+            Class<?> metrics = Class.forName("RoutingMetrics");
+            METRICS = lookup.findStatic(metrics, "get", MethodType.methodType(metrics));
+            RESET_METRICS = lookup.findVirtual(metrics, "reset", MethodType.methodType(void.class));
+            ENABLE_METRICS = lookup.findVirtual(metrics, "setEnabled", MethodType.methodType(void.class, boolean.class));
+            SETTLED_PER_SEARCH = lookup.findVirtual(metrics, "getSettledNodesPerSearch", MethodType.methodType(double.class));
+            Class<?> compiled = Class.forName("CompiledGraph");
+            Class<?> hierarchy = Class.forName("ContractionHierarchy");
+            COMPILED = lookup.findVirtual(graph, "compiled", MethodType.methodType(compiled));
+            BUILD_HIERARCHY = lookup.findStatic(hierarchy, "build", MethodType.methodType(hierarchy, compiled));
+            USE_HIERARCHY = lookup.findVirtual(graph, "useHierarchy", MethodType.methodType(void.class, hierarchy));
+            Class<?> picker = Class.forName("OrderPicker");
+            Class<?> plan = Class.forName("OrderPicker$Plan");
+            Class<?> objective = Class.forName("OrderPicker$Objective");
+            NEW_PICKER = lookup.findConstructor(picker, MethodType.methodType(void.class, graph, ForkJoinPool.class));
+            PICK = lookup.findVirtual(picker, "plan", MethodType.methodType(plan, node, node, List.class,
+                    int.class, int.class, objective));
+            PLAN_TOTAL = lookup.findGetter(plan, "total", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private App() {
+    }
+
+    static Object newGraph(String json) {
+        try {
+            return NEW_GRAPH.invoke(json);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static List<?> nodes(Object graph) {
+        try {
+            return (List<?>) NODES.invoke(graph);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static String name(Object node) {
+        try {
+            return (String) NODE_NAME.invoke(node);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static List<?> dijkstra(Object graph, Object start, Object end) {
+        try {
+            return (List<?>) DIJKSTRA.invoke(graph, start, end);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static List<?> getPath(Object graph, Object start, Object end, List<?> mustVisit) {
+        try {
+            return (List<?>) GET_PATH.invoke(graph, start, end, mustVisit);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static BitSet pathEdges(Object graph, List<?> path) {
+        try {
+            return (BitSet) PATH_EDGES.invoke(graph, path);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static int calculateWeight(Object graph, List<?> path) {
+        try {
+            return (int) CALCULATE_WEIGHT.invoke(graph, path);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** Remplace la stratégie de {@code GraphData.solver} : "brute", "heldkarp" ou "heuristic:&lt;ms&gt;". */
+    static void useSolver(Object graph, String name) {
+        try {
+            Object solver;
+            if (name.equals("brute")) {
+                solver = Class.forName("BruteForceSolver").getConstructor().newInstance();
+            } else if (name.equals("heldkarp")) {
+                solver = Class.forName("HeldKarpSolver").getConstructor().newInstance();
+            } else if (name.startsWith("heuristic:")) {
+                solver = Class.forName("HeuristicTourSolver").getConstructor(long.class)
+                        .newInstance(Long.parseLong(name.substring(10)));
+            } else {
+                throw new IllegalArgumentException("Solveur inconnu : " + name);
+            }
+            SET_SOLVER.invoke(graph, solver);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** Remplace {@code GraphData.cache} par un cache de la taille donnée (0 : désactivé). */
+    static void useCache(Object graph, int maxRoutes, int maxTrees) {
+        try {
+            SET_CACHE.invoke(graph, NEW_CACHE.invoke(maxRoutes, maxTrees));
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static int edgeCount(Object graph) {
+        try {
+            return ((List<?>) EDGES.invoke(graph)).size();
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object tree(Object graph, Object source) {
+        try {
+            return TREE.invoke(graph, source);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void updateWeights(Object graph, int[] edges, int[] weights) {
+        try {
+            UPDATE_WEIGHTS.invoke(graph, edges, weights);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Remplace {@code GraphData.strategy} : "DIJKSTRA", "A_STAR", "BIDIRECTIONAL" ou
+     * "CONTRACTION_HIERARCHY", qui construit et installe d'abord la hiérarchie.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static void useStrategy(Object graph, String name) {
+        try {
+            if (name.equals("CONTRACTION_HIERARCHY")) {
+                USE_HIERARCHY.invoke(graph, BUILD_HIERARCHY.invoke(COMPILED.invoke(graph)));
+            }
+            Class<? extends Enum> strategy = (Class<? extends Enum>) Class.forName("SearchStrategy");
+            SET_STRATEGY.invoke(graph, Enum.valueOf(strategy, name));
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Nœuds fixés en moyenne par recherche point à point pendant {@code searches}, relevés par
+     * RoutingMetrics (métriques activées le temps de l'appel seulement) : à lancer hors mesure.
+     */
+    static double settledPerSearch(Runnable searches) {
+        try {
+            Object metrics = METRICS.invoke();
+            RESET_METRICS.invoke(metrics);
+            ENABLE_METRICS.invoke(metrics, true);
+            try {
+                searches.run();
+            } finally {
+                ENABLE_METRICS.invoke(metrics, false);
+            }
+            return (double) SETTLED_PER_SEARCH.invoke(metrics);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object newPicker(Object graph, ForkJoinPool pool) {
+        try {
+            return NEW_PICKER.invoke(graph, pool);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /** {@code OrderPicker.plan} ; {@code objective} : "TOTAL" ou "MAKESPAN". Retourne le coût total. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static long pick(Object picker, Object start, Object end, List<? extends List<?>> orders, int pickers,
+                     int capacity, String objective) {
+        try {
+            Class<? extends Enum> type = (Class<? extends Enum>) Class.forName("OrderPicker$Objective");
+            Object plan = PICK.invoke(picker, start, end, orders, pickers, capacity, Enum.valueOf(type, objective));
+            return (long) PLAN_TOTAL.invoke(plan);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException e) return e;
+        if (t instanceof Error e) throw e;
+        return new IllegalStateException(t);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plus court chemin entre deux nœuds tirés au hasard : {@code GraphData.dijkstra} avec
+ * chaque stratégie. Le nombre moyen de nœuds fixés par requête est affiché en fin d'essai,
+ * relevé hors mesure sur un passage de plus par les mêmes paires ; la hiérarchie de
+ * contraction est construite pendant la préparation, hors mesure.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DijkstraBenchmark extends RoutingState {
+    private static final int PAIRS = 1024;
+
+    @Param({"DIJKSTRA", "A_STAR", "BIDIRECTIONAL", "CONTRACTION_HIERARCHY"})
+    public String strategy;
+
+    private Object[] from, to;
+    private int next;
+
+    @Setup
+    public void pairs() {
+        load();
+        App.useStrategy(graph, strategy);
+        from = new Object[PAIRS];
+        to = new Object[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            from[i] = randomNode();
+            to[i] = randomNode();
+        }
+    }
+
+    @TearDown
+    public void report() {
+        double settled = App.settledPerSearch(() -> {
+            for (int i = 0; i < PAIRS; i++) App.dijkstra(graph, from[i], to[i]);
+        });
+        System.out.printf("%n%s %s/%d : %.0f nœuds fixés par requête%n", strategy, layout, nodes, settled);
+    }
+
+    @Benchmark
+    public List<?> singlePair() {
+        int i = next++ & (PAIRS - 1);
+        return App.dijkstra(graph, from[i], to[i]);
+    }
+}
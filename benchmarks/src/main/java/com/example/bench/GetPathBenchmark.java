@@ -0,0 +1,59 @@
+package com.example.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parcours entrée → produits → caisse : {@code GraphData.getPath} avec chaque solveur.
+ * La force brute est limitée à 8 produits (8! ordres). Avec la hiérarchie de contraction,
+ * les distances entre arrêts viennent d'un calcul plusieurs-vers-plusieurs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GetPathBenchmark extends RoutingState {
+    private static final int BASKETS = 16;
+
+    @Param({"4", "6"})
+    public int products;
+
+    @Param({"heldkarp", "brute", "heuristic:20"})
+    public String solver;
+
+    @Param({"DIJKSTRA", "CONTRACTION_HIERARCHY"})
+    public String strategy;
+
+    private List<List<Object>> baskets;
+    private int next;
+
+    @Setup
+    public void baskets() {
+        load();
+        if (solver.equals("brute") && products > 8) {
+            throw new IllegalStateException("Force brute limitée à 8 produits");
+        }
+        App.useSolver(graph, solver);
+        App.useStrategy(graph, strategy);
+        App.useCache(graph, 0, 0); // mesure le solveur, pas le cache
+        baskets = new ArrayList<>();
+        for (int b = 0; b < BASKETS; b++) {
+            List<Object> basket = new ArrayList<>();
+            while (basket.size() < products) {
+                Object node = randomNode();
+                if (!basket.contains(node) && node != start && node != end) basket.add(node);
+            }
+            baskets.add(basket);
+        }
+    }
+
+    @Benchmark
+    public List<?> multiStop() {
+        return App.getPath(graph, start, end, baskets.get(next++ % BASKETS));
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Chargement d'un plan GeoJSON : constructeur {@code GraphData(String)}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+    @Param({"grid", "web", "mesh"})
+    public String layout;
+
+    @Param({"1000", "10000"})
+    public int nodes;
+
+    private String json;
+
+    @Setup
+    public void setup() {
+        json = StoreGraphs.geoJson(layout, nodes, 42);
+    }
+
+    @Benchmark
+    public Object parse() {
+        return App.newGraph(json);
+    }
+}
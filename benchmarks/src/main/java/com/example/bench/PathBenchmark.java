@@ -0,0 +1,34 @@
+package com.example.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Post-traitement d'un itinéraire traversant tout le plan : arêtes à surligner et poids. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PathBenchmark extends RoutingState {
+    private List<?> path;
+
+    @Setup
+    public void route() {
+        load();
+        path = App.dijkstra(graph, start, end);
+    }
+
+    @Benchmark
+    public BitSet highlightPath() {
+        return App.pathEdges(graph, path);
+    }
+
+    @Benchmark
+    public int calculateWeight() {
+        return App.calculateWeight(graph, path);
+    }
+}
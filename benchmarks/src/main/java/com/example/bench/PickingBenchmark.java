@@ -0,0 +1,71 @@
+package com.example.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Préparation groupée : {@code OrderPicker.plan} pour des commandes de 2 à 5 produits
+ * tirés parmi un assortiment commun (les produits partagés rendent le regroupement utile),
+ * selon le nombre de threads de la recherche locale.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PickingBenchmark extends RoutingState {
+    private static final int ASSORTMENT = 40;
+
+    @Param({"24"})
+    public int orders;
+
+    @Param({"4"})
+    public int pickers;
+
+    @Param({"TOTAL", "MAKESPAN"})
+    public String objective;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private List<List<Object>> batch;
+    private ForkJoinPool pool;
+    private Object picker;
+
+    @Setup
+    public void orders() {
+        load();
+        List<Object> assortment = new ArrayList<>();
+        while (assortment.size() < ASSORTMENT) {
+            Object node = randomNode();
+            if (!assortment.contains(node) && node != start && node != end) assortment.add(node);
+        }
+        batch = new ArrayList<>();
+        for (int o = 0; o < orders; o++) {
+            List<Object> order = new ArrayList<>();
+            int size = 2 + random.nextInt(4);
+            while (order.size() < size) {
+                Object node = assortment.get(random.nextInt(ASSORTMENT));
+                if (!order.contains(node)) order.add(node);
+            }
+            batch.add(order);
+        }
+        pool = new ForkJoinPool(threads);
+        picker = App.newPicker(graph, pool);
+    }
+
+    @TearDown
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public long plan() {
+        return App.pick(picker, start, end, batch, pickers, (orders + pickers - 1) / pickers + 1, objective);
+    }
+}
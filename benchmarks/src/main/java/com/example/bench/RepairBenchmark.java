@@ -0,0 +1,60 @@
+package com.example.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Changements de poids en direct ({@code GraphData.updateWeights}) avec {@value #TREES} arbres
+ * en cache : réparation incrémentale des arbres, ou cache vidé puis arbres recalculés en entier.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepairBenchmark extends RoutingState {
+    private static final int TREES = 16;
+    private static final int BATCHES = 64;
+
+    @Param({"1", "16"})
+    public int changes;
+
+    @Param({"incremental", "full"})
+    public String mode;
+
+    private Object[] sources;
+    private int[][] batchEdges, batchWeights;
+    private int next;
+
+    @Setup
+    public void trees() {
+        load();
+        App.useCache(graph, 0, TREES);
+        sources = new Object[TREES];
+        for (int i = 0; i < TREES; i++) {
+            sources[i] = randomNode();
+            App.tree(graph, sources[i]);
+        }
+        int edges = App.edgeCount(graph);
+        batchEdges = new int[BATCHES][changes];
+        batchWeights = new int[BATCHES][changes];
+        for (int b = 0; b < BATCHES; b++) {
+            for (int i = 0; i < changes; i++) {
+                batchEdges[b][i] = random.nextInt(edges);
+                batchWeights[b][i] = 1 + random.nextInt(9);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object update() {
+        int b = next++ & (BATCHES - 1);
+        if (mode.equals("full")) App.useCache(graph, 0, TREES);
+        App.updateWeights(graph, batchEdges[b], batchWeights[b]);
+        Object tree = null;
+        for (Object source : sources) tree = App.tree(graph, source);
+        return tree;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.bench;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Plan synthétique chargé une fois, avec ses entrée et caisse de référence.
+ * JMH ne garantit pas l'ordre des {@code @Setup} hérités : chaque benchmark appelle {@link #load()}.
+ */
+@State(Scope.Benchmark)
+public abstract class RoutingState {
+    @Param({"grid", "web", "mesh"})
+    public String layout;
+
+    @Param({"1000", "10000"})
+    public int nodes;
+
+    Object graph;
+    List<?> graphNodes;
+    Object start, end;
+    final Random random = new Random(42);
+
+    void load() {
+        graph = App.newGraph(StoreGraphs.geoJson(layout, nodes, 42));
+        graphNodes = App.nodes(graph);
+        for (Object node : graphNodes) {
+            if (App.name(node).equals(StoreGraphs.START)) start = node;
+            if (App.name(node).equals(StoreGraphs.END)) end = node;
+        }
+    }
+
+    Object randomNode() {
+        return graphNodes.get(random.nextInt(graphNodes.size()));
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Plans de magasin synthétiques au format GeoJSON lu par {@code GraphData} :
+ * <ul>
+ *   <li>{@code grid} : allées parallèles reliées par des allées transversales tous les quelques mètres ;</li>
+ *   <li>{@code web} : toile d'araignée (anneaux concentriques et rayons), comme supermarche_toile_araignee.json ;</li>
+ *   <li>{@code mesh} : maillage dense, chaque nœud relié à ses plus proches voisins.</li>
+ * </ul>
+ * Chaque plan a deux entrées (« Entrée A/B ») en haut et trois caisses (« Caisse A/B/C ») en bas.
+ */
+public final class StoreGraphs {
+    public static final String START = "Entrée A";
+    public static final String END = "Caisse C";
+
+    private final List<double[]> points = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<int[]> lines = new ArrayList<>();
+    private final Random random;
+
+    private StoreGraphs(long seed) {
+        random = new Random(seed);
+    }
+
+    /** Plan de {@code layout} avec environ {@code nodes} nœuds. */
+    public static String geoJson(String layout, int nodes, long seed) {
+        StoreGraphs g = new StoreGraphs(seed);
+        switch (layout) {
+            case "grid" -> g.grid(nodes);
+            case "web" -> g.web(nodes);
+            case "mesh" -> g.mesh(nodes);
+            default -> throw new IllegalArgumentException("Plan inconnu : " + layout);
+        }
+        return g.toJson();
+    }
+
+    private int point(double x, double y, String name) {
+        points.add(new double[]{x, y});
+        names.add(name);
+        return points.size() - 1;
+    }
+
+    private void line(int a, int b) {
+        lines.add(new int[]{a, b, 1 + random.nextInt(5)});
+    }
+
+    private void grid(int n) {
+        int cols = Math.max(2, (int) Math.sqrt(n * 2.0));
+        int rows = Math.max(2, n / cols);
+        int[][] id = new int[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                id[r][c] = point(c, r, "Rayon " + r + "-" + c);
+                if (c > 0) line(id[r][c - 1], id[r][c]);
+                // allées transversales aux extrémités et toutes les 5 colonnes
+                if (r > 0 && (c == 0 || c == cols - 1 || c % 5 == 0)) line(id[r - 1][c], id[r][c]);
+            }
+        }
+        doors(id[rows - 1], id[0], rows);
+    }
+
+    private void web(int n) {
+        int spokes = Math.max(6, (int) Math.sqrt(n));
+        int rings = Math.max(1, n / spokes);
+        int center = point(0, 0, "Centre");
+        int[] previous = null;
+        int[] ring = null;
+        for (int r = 1; r <= rings; r++) {
+            ring = new int[spokes];
+            for (int s = 0; s < spokes; s++) {
+                double angle = 2 * Math.PI * s / spokes;
+                ring[s] = point(r * Math.cos(angle), r * Math.sin(angle), "Rayon " + r + "-" + s);
+                if (s > 0) line(ring[s - 1], ring[s]);
+                line(previous == null ? center : previous[s], ring[s]);
+            }
+            line(ring[spokes - 1], ring[0]);
+            previous = ring;
+        }
+        // entrées en haut de l'anneau extérieur, caisses en bas
+        int a = point(-rings * 0.5, rings + 1, "Entrée A");
+        int b = point(rings * 0.5, rings + 1, "Entrée B");
+        line(a, ring[spokes / 4]);
+        line(b, ring[(spokes / 4 + 1) % spokes]);
+        for (int i = 0; i < 3; i++) {
+            int k = point((i - 1) * rings * 0.5, -rings - 1, "Caisse " + (char) ('A' + i));
+            line(k, ring[(3 * spokes / 4 + i - 1 + spokes) % spokes]);
+        }
+    }
+
+    private void mesh(int n) {
+        double side = Math.sqrt(n);
+        for (int i = 0; i < n; i++) {
+            point(random.nextDouble() * side, random.nextDouble() * side, "Rayon " + i);
+        }
+        // chaque nœud relié à ses 6 plus proches voisins (grille de cases unitaires)
+        int cells = (int) Math.ceil(side);
+        List<List<Integer>> grid = new ArrayList<>();
+        for (int i = 0; i < cells * cells; i++) grid.add(new ArrayList<>());
+        for (int i = 0; i < n; i++) grid.get(cell(i, cells)).add(i);
+        for (int i = 0; i < n; i++) {
+            double[] p = points.get(i);
+            int cx = Math.min(cells - 1, (int) p[0]), cy = Math.min(cells - 1, (int) p[1]);
+            List<int[]> near = new ArrayList<>();
+            for (int y = Math.max(0, cy - 2); y <= Math.min(cells - 1, cy + 2); y++) {
+                for (int x = Math.max(0, cx - 2); x <= Math.min(cells - 1, cx + 2); x++) {
+                    for (int j : grid.get(y * cells + x)) {
+                        if (j != i) near.add(new int[]{j, (int) (1e6 * Math.hypot(points.get(j)[0] - p[0], points.get(j)[1] - p[1]))});
+                    }
+                }
+            }
+            near.sort((u, v) -> Integer.compare(u[1], v[1]));
+            for (int k = 0; k < Math.min(6, near.size()); k++) {
+                if (near.get(k)[0] > i) line(i, near.get(k)[0]);
+            }
+            if (i > 0) line(i - 1, i); // garantit la connexité
+        }
+        int top = 0, bottom = 0;
+        for (int i = 0; i < n; i++) {
+            if (points.get(i)[1] > points.get(top)[1]) top = i;
+            if (points.get(i)[1] < points.get(bottom)[1]) bottom = i;
+        }
+        int a = point(points.get(top)[0] - 0.5, side + 1, "Entrée A");
+        int b = point(points.get(top)[0] + 0.5, side + 1, "Entrée B");
+        line(a, top);
+        line(b, top);
+        for (int i = 0; i < 3; i++) {
+            line(point(points.get(bottom)[0] + i - 1, -1, "Caisse " + (char) ('A' + i)), bottom);
+        }
+    }
+
+    private int cell(int i, int cells) {
+        double[] p = points.get(i);
+        return Math.min(cells - 1, (int) p[1]) * cells + Math.min(cells - 1, (int) p[0]);
+    }
+
+    // entrées au-dessus de la dernière rangée, caisses sous la première
+    private void doors(int[] topRow, int[] bottomRow, int rows) {
+        int last = topRow.length - 1;
+        line(point(0, rows, "Entrée A"), topRow[0]);
+        line(point(last, rows, "Entrée B"), topRow[last]);
+        for (int i = 0; i < 3; i++) {
+            int col = last * (i + 1) / 4;
+            line(point(col, -1, "Caisse " + (char) ('A' + i)), bottomRow[col]);
+        }
+    }
+
+    private String toJson() {
+        StringBuilder sb = new StringBuilder(points.size() * 120 + lines.size() * 140);
+        sb.append("{\"type\":\"FeatureCollection\",\"features\":[");
+        for (int i = 0; i < points.size(); i++) {
+            double[] p = points.get(i);
+            sb.append("{\"type\":\"Feature\",\"properties\":{\"name\":\"").append(names.get(i))
+                    .append("\"},\"geometry\":{\"type\":\"Point\",\"coordinates\":[")
+                    .append(fmt(p[0])).append(',').append(fmt(p[1])).append("]}},");
+        }
+        for (int[] l : lines) {
+            double[] a = points.get(l[0]), b = points.get(l[1]);
+            sb.append("{\"type\":\"Feature\",\"properties\":{\"weight\":").append(l[2])
+                    .append("},\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[")
+                    .append(fmt(a[0])).append(',').append(fmt(a[1])).append("],[")
+                    .append(fmt(b[0])).append(',').append(fmt(b[1])).append("]]}},");
+        }
+        sb.setLength(sb.length() - 1);
+        return sb.append("]}").toString();
+    }
+
+    private static String fmt(double v) {
+        return String.format(Locale.ROOT, "%.6f", v);
+    }
+}
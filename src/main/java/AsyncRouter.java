@@ -0,0 +1,78 @@
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Routage en arrière-plan pour l'interface : une seule requête à la fois, toute nouvelle
+ * requête annule (et interrompt) celle en cours. Les rappels {@code progress} arrivent sur
+ * le thread de calcul ; à l'appelant de les renvoyer vers le thread JavaFX.
+ * Le moteur est pris au lancement de chaque requête (plan rechargé à chaud : voir
+ * {@link LayoutManager}), qui se termine sur celui-là.
+ */
+public class AsyncRouter implements AutoCloseable {
+    private final Supplier<RoutingEngine> engine;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "routage");
+        t.setDaemon(true);
+        return t;
+    });
+    private CompletableFuture<Route> current;
+
+    public AsyncRouter(RoutingEngine engine) {
+        this(() -> engine);
+    }
+
+    public AsyncRouter(Supplier<RoutingEngine> engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Lance le calcul (plusieurs entrées ou sorties : mode « n'importe laquelle ») ;
+     * annuler le futur retourné interrompt la recherche.
+     */
+    public synchronized CompletableFuture<Route> route(List<String> startNames, List<String> endNames,
+                                                       List<String> required, Consumer<Route> progress) {
+        cancel();
+        CompletableFuture<Route> result = new CompletableFuture<>();
+        FutureTask<Route> task = new FutureTask<>(() -> engine.get().route(startNames, endNames, required, progress)) {
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    result.cancel(false);
+                    return;
+                }
+                try {
+                    result.complete(get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof CancellationException) result.cancel(false);
+                    else result.completeExceptionally(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        result.whenComplete((route, error) -> {
+            if (result.isCancelled()) task.cancel(true);
+        });
+        current = result;
+        executor.execute(task);
+        return result;
+    }
+
+    public synchronized void cancel() {
+        if (current != null) current.cancel(true);
+        current = null;
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        executor.shutdownNow();
+    }
+}
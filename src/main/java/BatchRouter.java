@@ -0,0 +1,144 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Routage hors interface d'un fichier de paniers, en parallèle sur un graphe partagé.
+ *
+ * <p>Entrée (JSON Lines) : {@code {"id": ..., "entrance": "Entrée A", "exit": "Caisse B", "products": ["Pain", ...]}}
+ * <br>Sortie (JSON Lines, même ordre) : {@code {"id": ..., "cost": 12, "path": ["Entrée A", ...]}}
+ * ou {@code {"id": ..., "error": "..."}}.
+ *
+ * <p>Usage : {@code java BatchRouter <plan.json|plan.bin> <paniers.jsonl> <resultats.jsonl> [--threads=N] [--heuristic=ms] [--search=dijkstra|a_star|bidirectional] [--hierarchy=plan.ch] [--max-snap=distance]}
+ * <br>Sans {@code --threads}, un thread virtuel par panier. {@code --hierarchy} relit une
+ * hiérarchie de contraction préparée par {@link ContractionHierarchy} et l'utilise.
+ * {@code --max-snap} ignore, en les signalant, les sommets d'allée trop loin de tout nœud.
+ * Avec {@code -Dcoursetoujours.metrics=true}, le bilan de {@link RoutingMetrics} est affiché à la fin,
+ * dont les nœuds fixés par recherche point à point selon la stratégie.
+ */
+public class BatchRouter {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage : java BatchRouter <plan.json|plan.bin> <paniers.jsonl> <resultats.jsonl> [--threads=N] [--heuristic=ms] [--search=dijkstra|a_star|bidirectional] [--hierarchy=plan.ch] [--max-snap=distance]");
+            System.exit(1);
+        }
+        int threads = 0;
+        long heuristicMillis = -1;
+        SearchStrategy strategy = SearchStrategy.DIJKSTRA;
+        Path hierarchy = null;
+        double maxSnap = Double.POSITIVE_INFINITY;
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].startsWith("--threads=")) threads = Integer.parseInt(args[i].substring(10));
+            else if (args[i].startsWith("--heuristic=")) heuristicMillis = Long.parseLong(args[i].substring(12));
+            else if (args[i].startsWith("--search=")) strategy = SearchStrategy.valueOf(args[i].substring(9).toUpperCase());
+            else if (args[i].startsWith("--hierarchy=")) hierarchy = Path.of(args[i].substring(12));
+            else if (args[i].startsWith("--max-snap=")) maxSnap = Double.parseDouble(args[i].substring(11));
+        }
+
+        RoutingMetrics.install();
+        GraphData data = GraphData.load(Path.of(args[0]), maxSnap);
+        data.reportStrays(args[0]);
+        if (heuristicMillis >= 0) data.solver = new HeuristicTourSolver(heuristicMillis);
+        if (hierarchy != null) {
+            data.loadHierarchy(hierarchy);
+            strategy = SearchStrategy.CONTRACTION_HIERARCHY;
+        }
+        data.strategy = strategy;
+        RoutingEngine engine = new RoutingEngine(data);
+
+        List<String> lines = Files.readAllLines(Path.of(args[1]), StandardCharsets.UTF_8);
+        lines.removeIf(String::isBlank);
+
+        long start = System.nanoTime();
+        List<Future<Result>> results = new ArrayList<>(lines.size());
+        try (ExecutorService executor = threads > 0
+                ? Executors.newFixedThreadPool(threads)
+                : Executors.newVirtualThreadPerTaskExecutor();
+             BufferedWriter out = Files.newBufferedWriter(Path.of(args[2]), StandardCharsets.UTF_8)) {
+            for (String line : lines) {
+                results.add(executor.submit(() -> route(engine, line)));
+            }
+
+            long[] latencies = new long[lines.size()];
+            int failed = 0;
+            for (int i = 0; i < results.size(); i++) {
+                Result result = get(results.get(i));
+                latencies[i] = result.nanos;
+                if (result.json.has("error")) failed++;
+                out.write(result.json.toString());
+                out.newLine();
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Arrays.sort(latencies);
+            System.out.printf("%d paniers (%d en erreur) en %.2f s : %.0f paniers/s%n",
+                    lines.size(), failed, seconds, lines.size() / seconds);
+            if (latencies.length > 0) {
+                System.out.printf("latence ms : p50 %.2f  p95 %.2f  p99 %.2f  max %.2f%n",
+                        percentile(latencies, 0.50), percentile(latencies, 0.95),
+                        percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6);
+            }
+            System.out.println("cache : " + data.cache);
+            RoutingMetrics metrics = RoutingMetrics.get();
+            if (metrics.isEnabled() && metrics.getPointSearches() > 0) {
+                System.out.printf("recherches point à point (%s) : %d, %.0f nœuds fixés en moyenne%n", strategy,
+                        metrics.getPointSearches(), metrics.getSettledNodesPerSearch());
+            }
+            if (metrics.isEnabled()) System.out.println("métriques : " + metrics.toJson());
+        }
+    }
+
+    private record Result(JSONObject json, long nanos) {
+    }
+
+    private static Result route(RoutingEngine engine, String line) {
+        long t0 = System.nanoTime();
+        JSONObject out = new JSONObject();
+        try {
+            JSONObject basket = new JSONObject(line);
+            out.put("id", basket.opt("id"));
+            List<String> products = new ArrayList<>();
+            JSONArray array = basket.optJSONArray("products");
+            if (array != null) {
+                for (int i = 0; i < array.length(); i++) products.add(array.getString(i));
+            }
+
+            Route route = engine.route(basket.getString("entrance"), basket.getString("exit"), products);
+            if (route == null) {
+                out.put("error", "aucun itinéraire");
+            } else {
+                out.put("cost", route.weight);
+                out.put("path", new JSONArray(route.path.stream().map(n -> n.name).toList()));
+            }
+        } catch (RuntimeException e) {
+            out.put("error", String.valueOf(e.getMessage()));
+        }
+        return new Result(out, System.nanoTime() - t0);
+    }
+
+    private static Result get(Future<Result> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))] / 1e6;
+    }
+}
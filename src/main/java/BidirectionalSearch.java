@@ -0,0 +1,125 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dijkstra bidirectionnel point à point : une recherche depuis la source et une depuis la
+ * cible (le graphe est non orienté), en développant toujours le côté dont le tas a la plus
+ * petite clé. Arrêt dès que la somme des deux minima atteint le meilleur raccord connu.
+ * Même principe de tampons réutilisables que {@link DijkstraSearch} ; une instance n'est
+ * pas partageable entre threads.
+ */
+public class BidirectionalSearch {
+    public static final int INFINITY = DijkstraSearch.INFINITY;
+
+    private final CompiledGraph graph;
+    // indice 0 : côté source, 1 : côté cible
+    private final int[][] dist = new int[2][];
+    private final int[][] prev = new int[2][];
+    private final int[][] stamp = new int[2][];
+    private final boolean[][] settled = new boolean[2][];
+    private final IndexedHeap[] heaps = new IndexedHeap[2];
+    private int generation;
+    private int meeting = -1;
+    private int best;
+    private int settledCount;
+    private int relaxedCount;
+
+    public BidirectionalSearch(CompiledGraph graph) {
+        this.graph = graph;
+        int n = graph.size();
+        for (int side = 0; side < 2; side++) {
+            dist[side] = new int[n];
+            prev[side] = new int[n];
+            stamp[side] = new int[n];
+            settled[side] = new boolean[n];
+            heaps[side] = new IndexedHeap(n);
+        }
+    }
+
+    /** Version du graphe sur laquelle travaille ce tampon. */
+    public CompiledGraph graph() {
+        return graph;
+    }
+
+    /** Distance source → target, ou {@link #INFINITY}. */
+    public int run(int source, int target) {
+        if (++generation == 0) {
+            for (int[] s : stamp) java.util.Arrays.fill(s, 0);
+            generation = 1;
+        }
+        settledCount = 0;
+        relaxedCount = 0;
+        best = INFINITY;
+        meeting = -1;
+        heaps[0].clear();
+        heaps[1].clear();
+        reach(0, source, 0, -1);
+        reach(1, target, 0, -1);
+        if (source == target) {
+            best = 0;
+            meeting = source;
+            return 0;
+        }
+
+        int[] offsets = graph.offsets, targets = graph.targets, weights = graph.weights;
+        while (!heaps[0].isEmpty() && !heaps[1].isEmpty()) {
+            int top0 = heaps[0].peekKey(), top1 = heaps[1].peekKey();
+            if ((long) top0 + top1 >= best) break;
+            int side = top0 <= top1 ? 0 : 1;
+            int other = 1 - side;
+            int[] d = dist[side], p = prev[side], s = stamp[side];
+            int[] otherDist = dist[other], otherStamp = stamp[other];
+
+            int u = heaps[side].poll();
+            settled[side][u] = true;
+            settledCount++;
+            relaxedCount += offsets[u + 1] - offsets[u];
+            int du = d[u];
+            for (int a = offsets[u]; a < offsets[u + 1]; a++) {
+                int v = targets[a];
+                int alt = du + weights[a];
+                if (s[v] != generation) {
+                    reach(side, v, alt, u);
+                } else if (!settled[side][v] && alt < d[v]) {
+                    d[v] = alt;
+                    p[v] = u;
+                    heaps[side].push(v, alt);
+                }
+                // raccord possible par v, avec la meilleure distance connue de chaque côté
+                if (otherStamp[v] == generation && (long) d[v] + otherDist[v] < best) {
+                    best = d[v] + otherDist[v];
+                    meeting = v;
+                }
+            }
+        }
+        return best;
+    }
+
+    private void reach(int side, int v, int d, int from) {
+        stamp[side][v] = generation;
+        dist[side][v] = d;
+        prev[side][v] = from;
+        settled[side][v] = false;
+        heaps[side].push(v, d);
+    }
+
+    /** Nombre de nœuds fixés (des deux côtés) par la dernière recherche. */
+    public int settled() {
+        return settledCount;
+    }
+
+    /** Nombre d'arcs relâchés (des deux côtés) par la dernière recherche. */
+    public int relaxed() {
+        return relaxedCount;
+    }
+
+    /** Chemin source → cible de la dernière recherche, ou null s'il n'existe pas. */
+    public List<Node> path() {
+        if (meeting < 0) return null;
+        List<Node> path = new ArrayList<>();
+        for (int at = meeting; at >= 0; at = prev[0][at]) path.add(graph.node(at));
+        java.util.Collections.reverse(path);
+        for (int at = prev[1][meeting]; at >= 0; at = prev[1][at]) path.add(graph.node(at));
+        return path;
+    }
+}
@@ -0,0 +1,82 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Essaie toutes les permutations de mustVisit. Chaque étape (paire d'arrêts) n'est
+ * cherchée et relevée qu'une fois, quel que soit le nombre de permutations qui la parcourent.
+ */
+public class BruteForceSolver implements TourSolver {
+
+    @Override
+    public Tour solve(GraphData graph, Node start, Node end, List<Node> mustVisit) {
+        List<Node> bestPath = null;
+        int bestCost = Integer.MAX_VALUE;
+
+        // toutes les permutations de mustVisit
+        List<List<Node>> permutations = new ArrayList<>();
+        permute(new ArrayList<>(mustVisit), 0, permutations);
+        Map<Node, Map<Node, RoutePath>> legs = new IdentityHashMap<>();
+
+        for (List<Node> perm : permutations) {
+            TourSolver.checkCancelled();
+            List<Node> currentPath = new ArrayList<>();
+            int currentCost = 0;
+            Node current = start;
+            boolean failed = false;
+
+            for (Node next : perm) {
+                RoutePath segment = leg(graph, legs, current, next);
+                if (segment == null) {
+                    failed = true;
+                    break;
+                }
+                // éviter doublon
+                currentPath.addAll(currentPath.isEmpty() ? segment.nodes : segment.nodes.subList(1, segment.nodes.size()));
+                currentCost += segment.cost();
+                current = next;
+            }
+
+            if (failed) continue;
+
+            // dernier segment vers la sortie
+            RoutePath segmentToEnd = leg(graph, legs, current, end);
+            if (segmentToEnd == null) {
+                continue;
+            }
+            currentPath.addAll(segmentToEnd.nodes.subList(1, segmentToEnd.nodes.size()));
+            currentCost += segmentToEnd.cost();
+
+            if (currentCost < bestCost) {
+                bestCost = currentCost;
+                bestPath = currentPath;
+            }
+        }
+
+        return bestPath == null ? null : new Tour(bestPath, bestCost, permutations.size());
+    }
+
+    // plus court chemin from → to avec ses coûts, null s'il n'existe pas ou ne bouge pas
+    private static RoutePath leg(GraphData graph, Map<Node, Map<Node, RoutePath>> legs, Node from, Node to) {
+        Map<Node, RoutePath> row = legs.computeIfAbsent(from, n -> new IdentityHashMap<>());
+        if (row.containsKey(to)) return row.get(to);
+        List<Node> segment = graph.dijkstra(from, to);
+        RoutePath trace = segment == null || segment.size() < 2 ? null : graph.trace(segment);
+        row.put(to, trace);
+        return trace;
+    }
+
+    private void permute(List<Node> nodes, int i, List<List<Node>> result) {
+        if (i == nodes.size()) {
+            result.add(new ArrayList<>(nodes));
+            return;
+        }
+        for (int j = i; j < nodes.size(); j++) {
+            Collections.swap(nodes, i, j);
+            permute(nodes, i + 1, result);
+            Collections.swap(nodes, i, j);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Graphe compilé et immuable : ids entiers pour les nœuds et adjacence CSR
+ * (offsets / targets / weights). Chaque {@link Edge} est rangée dans les deux
+ * sens, comme le parcours de {@code dijkstra}. Un changement de poids produit
+ * une nouvelle version ({@link #withWeights}) qui partage la topologie.
+ */
+public class CompiledGraph {
+    final Node[] nodes;
+    final int[] offsets;
+    final int[] targets;
+    final int[] weights;
+    final int[] edgeIds;
+    // numéro de version, incrémenté à chaque changement de poids
+    final int version;
+    private final Map<Node, Integer> ids;
+    // edgeArcs[2e] et edgeArcs[2e + 1] : les deux arcs de l'arête e, -1 si elle est ignorée
+    private final int[] edgeArcs;
+    // plus petit rapport poids / longueur euclidienne, calculé au premier appel (-1 : pas encore)
+    private volatile double minRatio = -1;
+
+    public CompiledGraph(List<Node> nodeList, List<Edge> edgeList) {
+        int n = nodeList.size();
+        nodes = nodeList.toArray(new Node[0]);
+        version = 0;
+        ids = new IdentityHashMap<>();
+        for (int i = 0; i < n; i++) ids.put(nodes[i], i);
+
+        int[] from = new int[edgeList.size()];
+        int[] to = new int[edgeList.size()];
+        offsets = new int[n + 1];
+        for (int e = 0; e < edgeList.size(); e++) {
+            Edge edge = edgeList.get(e);
+            from[e] = id(edge.from);
+            to[e] = id(edge.to);
+            if (from[e] < 0 || to[e] < 0 || from[e] == to[e]) {
+                from[e] = -1; // boucle ou nœud inconnu : jamais utile
+                continue;
+            }
+            offsets[from[e] + 1]++;
+            offsets[to[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) offsets[i + 1] += offsets[i];
+
+        targets = new int[offsets[n]];
+        weights = new int[offsets[n]];
+        edgeIds = new int[offsets[n]];
+        int[] fill = new int[n];
+        System.arraycopy(offsets, 0, fill, 0, n);
+        for (int e = 0; e < edgeList.size(); e++) {
+            if (from[e] < 0) continue;
+            int w = edgeList.get(e).weight;
+            int a = fill[from[e]]++;
+            targets[a] = to[e];
+            weights[a] = w;
+            edgeIds[a] = e;
+            int b = fill[to[e]]++;
+            targets[b] = from[e];
+            weights[b] = w;
+            edgeIds[b] = e;
+        }
+        edgeArcs = edgeArcs(edgeIds);
+    }
+
+    // tableaux CSR déjà construits (chargement binaire) : aucune recopie
+    CompiledGraph(Node[] nodes, int[] offsets, int[] targets, int[] weights, int[] edgeIds) {
+        this.nodes = nodes;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.edgeIds = edgeIds;
+        version = 0;
+        ids = new IdentityHashMap<>();
+        for (int i = 0; i < nodes.length; i++) ids.put(nodes[i], i);
+        edgeArcs = edgeArcs(edgeIds);
+    }
+
+    private CompiledGraph(CompiledGraph base, int[] weights) {
+        nodes = base.nodes;
+        offsets = base.offsets;
+        targets = base.targets;
+        this.weights = weights;
+        edgeIds = base.edgeIds;
+        version = base.version + 1;
+        ids = base.ids;
+        edgeArcs = base.edgeArcs;
+    }
+
+    private static int[] edgeArcs(int[] edgeIds) {
+        int count = 0;
+        for (int e : edgeIds) count = Math.max(count, e + 1);
+        int[] arcs = new int[2 * count];
+        java.util.Arrays.fill(arcs, -1);
+        for (int a = 0; a < edgeIds.length; a++) {
+            int e = edgeIds[a];
+            arcs[arcs[2 * e] < 0 ? 2 * e : 2 * e + 1] = a;
+        }
+        return arcs;
+    }
+
+    /**
+     * Nouvelle version du graphe où l'arête {@code edges[i]} pèse {@code newWeights[i]} ;
+     * les arêtes ignorées à la compilation (boucles) sont sans effet.
+     */
+    public CompiledGraph withWeights(int[] edges, int[] newWeights) {
+        int[] w = weights.clone();
+        for (int i = 0; i < edges.length; i++) {
+            if (newWeights[i] < 0) throw new IllegalArgumentException("Poids négatif : " + newWeights[i]);
+            int a = arc(edges[i], 0);
+            if (a < 0) continue;
+            w[a] = newWeights[i];
+            w[arc(edges[i], 1)] = newWeights[i];
+        }
+        return new CompiledGraph(this, w);
+    }
+
+    /** Arc de l'arête {@code edge} dans un sens (0) ou dans l'autre (1), -1 si elle est ignorée. */
+    int arc(int edge, int side) {
+        return edge >= 0 && 2 * edge < edgeArcs.length ? edgeArcs[2 * edge + side] : -1;
+    }
+
+    /**
+     * Plus petit rapport poids / longueur (en coordonnées lon/lat) sur toutes les arêtes :
+     * multiplié par la distance à vol d'oiseau, il minore le coût de tout chemin. 0 si une
+     * arête de longueur non nulle est gratuite ; les arêtes de longueur nulle sont ignorées.
+     */
+    public double minRatio() {
+        double ratio = minRatio;
+        if (ratio >= 0) return ratio;
+        ratio = Double.POSITIVE_INFINITY;
+        for (int u = 0; u < nodes.length; u++) {
+            for (int a = offsets[u]; a < offsets[u + 1]; a++) {
+                Node v = nodes[targets[a]];
+                double length = Math.hypot(nodes[u].lon - v.lon, nodes[u].lat - v.lat);
+                if (length > 0) ratio = Math.min(ratio, weights[a] / length);
+            }
+        }
+        if (ratio == Double.POSITIVE_INFINITY) ratio = 0;
+        minRatio = ratio;
+        return ratio;
+    }
+
+    /** Poids courant de l'arête, -1 si elle est ignorée. */
+    public int weight(int edge) {
+        int a = arc(edge, 0);
+        return a < 0 ? -1 : weights[a];
+    }
+
+    /** Arc u → v le plus léger (arêtes parallèles), ou -1 si u et v ne sont pas voisins. */
+    public int arcBetween(int u, int v) {
+        int best = -1;
+        for (int a = offsets[u]; a < offsets[u + 1]; a++) {
+            if (targets[a] == v && (best < 0 || weights[a] < weights[best])) best = a;
+        }
+        return best;
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    public int id(Node node) {
+        Integer id = ids.get(node);
+        return id == null ? -1 : id;
+    }
+
+    public Node node(int id) {
+        return nodes[id];
+    }
+}
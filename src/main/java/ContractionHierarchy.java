@@ -0,0 +1,601 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Hiérarchie de contraction d'un {@link CompiledGraph}, pour les très grands plans.
+ * Les nœuds sont contractés un à un, du moins important au plus important (différence
+ * d'arêtes + voisins déjà contractés, réévaluée paresseusement) ; un raccourci remplace
+ * chaque chemin u → v → w pour lequel aucun témoin aussi court n'existe sans v. Une
+ * requête ne suit ensuite que des arcs montants depuis chaque extrémité.
+ *
+ * <p>Liée à une version des poids : après {@link GraphData#updateWeights}, elle n'est plus
+ * utilisée tant qu'elle n'a pas été reconstruite. Construite une fois par plan et relue
+ * depuis un fichier :
+ * <pre>
+ * en-tête  : magic "CTCH", version, nbNœuds, nbArcs, empreinte du graphe (CRC32)
+ * rangs    : rank[nbNœuds]
+ * arcs     : offsets[nbNœuds + 1], targets[nbArcs], weights[nbArcs], middles[nbArcs]
+ * fin      : CRC32 de tout ce qui précède
+ * </pre>
+ *
+ * Usage : {@code java ContractionHierarchy <plan.json|plan.bin> <plan.ch>}
+ */
+public class ContractionHierarchy {
+    public static final int MAGIC = 0x43544348; // "CTCH"
+    public static final int VERSION = 1;
+    public static final int INFINITY = DijkstraSearch.INFINITY;
+    private static final int HEADER_SIZE = 4 * 5;
+    // nœuds fixés au plus par recherche de témoin : au-delà, le raccourci est ajouté ;
+    // bien plus court pour la simple estimation d'une priorité
+    private static final int WITNESS_LIMIT = 500;
+    private static final int ESTIMATE_LIMIT = 50;
+
+    private final CompiledGraph graph;
+    final int[] rank;
+    // arcs montants (vers un nœud de rang supérieur) ; middles : nœud contourné, -1 pour une arête du plan
+    final int[] offsets, targets, weights, middles;
+
+    private ContractionHierarchy(CompiledGraph graph, int[] rank, int[] offsets, int[] targets, int[] weights,
+                                 int[] middles) {
+        this.graph = graph;
+        this.rank = rank;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.middles = middles;
+    }
+
+    /** Version du graphe pour laquelle la hiérarchie a été construite. */
+    public CompiledGraph graph() {
+        return graph;
+    }
+
+    /** Nombre d'arcs montants, raccourcis compris. */
+    public int arcs() {
+        return targets.length;
+    }
+
+    /** Nombre de raccourcis ajoutés par la contraction. */
+    public int shortcuts() {
+        int count = 0;
+        for (int middle : middles) if (middle >= 0) count++;
+        return count;
+    }
+
+    public static ContractionHierarchy build(CompiledGraph graph) {
+        return new Builder(graph).build();
+    }
+
+    /** Recherche réutilisable sur cette hiérarchie ; une instance n'est pas partageable entre threads. */
+    public Query query() {
+        return new Query();
+    }
+
+    // nœud contourné par l'arc montant from → to (from de rang inférieur)
+    private int middle(int from, int to) {
+        for (int a = offsets[from]; a < offsets[from + 1]; a++) {
+            if (targets[a] == to) return middles[a];
+        }
+        throw new IllegalStateException("Arc absent de la hiérarchie : " + from + " → " + to);
+    }
+
+    // ajoute à path les nœuds de l'arc from → to déplié, sans from ; pile explicite (imbrication profonde possible)
+    private void unpack(int from, int to, int middle, List<Node> path) {
+        int[] stack = new int[48];
+        int size = 0;
+        stack[size++] = from;
+        stack[size++] = to;
+        stack[size++] = middle;
+        while (size > 0) {
+            int m = stack[--size], t = stack[--size], f = stack[--size];
+            if (m < 0) {
+                path.add(graph.node(t));
+                continue;
+            }
+            if (size + 6 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            // la seconde moitié est empilée d'abord pour être dépliée après la première
+            stack[size++] = m;
+            stack[size++] = t;
+            stack[size++] = middle(m, t);
+            stack[size++] = f;
+            stack[size++] = m;
+            stack[size++] = middle(m, f);
+        }
+    }
+
+    /**
+     * Recherches montantes depuis les deux extrémités, avec tampons réutilisables (même
+     * principe de génération que {@link DijkstraSearch}, un compteur par côté).
+     */
+    public final class Query {
+        // indice 0 : côté source, 1 : côté cible
+        private final int[][] dist = new int[2][];
+        private final int[][] parent = new int[2][];
+        private final int[][] stamp = new int[2][];
+        private final int[] generation = new int[2];
+        private final IndexedHeap[] heaps = new IndexedHeap[2];
+        private int meeting = -1;
+        private int settledCount;
+        private int relaxedCount;
+        // seaux du calcul plusieurs-vers-plusieurs : entrées chaînées par nœud
+        private final int[] bucketHead;
+        private final int[] bucketStamp;
+        private int bucketGeneration;
+        private int[] bucketNext = new int[64], bucketTarget = new int[64], bucketDist = new int[64];
+        private int[] order = new int[64];
+
+        private Query() {
+            int n = rank.length;
+            for (int side = 0; side < 2; side++) {
+                dist[side] = new int[n];
+                parent[side] = new int[n];
+                stamp[side] = new int[n];
+                heaps[side] = new IndexedHeap(n);
+            }
+            bucketHead = new int[n];
+            bucketStamp = new int[n];
+        }
+
+        public ContractionHierarchy hierarchy() {
+            return ContractionHierarchy.this;
+        }
+
+        private void begin(int side) {
+            if (++generation[side] == 0) {
+                Arrays.fill(stamp[side], 0);
+                generation[side] = 1;
+            }
+            heaps[side].clear();
+        }
+
+        private void reach(int side, int v, int d, int via) {
+            if (stamp[side][v] != generation[side]) {
+                stamp[side][v] = generation[side];
+            } else if (d >= dist[side][v]) {
+                return;
+            }
+            dist[side][v] = d;
+            parent[side][v] = via;
+            heaps[side].push(v, d);
+        }
+
+        private int distance(int side, int v) {
+            return stamp[side][v] == generation[side] ? dist[side][v] : INFINITY;
+        }
+
+        // fixe le prochain nœud du côté donné et relâche ses arcs montants
+        private int settle(int side) {
+            int u = heaps[side].poll();
+            settledCount++;
+            relaxedCount += offsets[u + 1] - offsets[u];
+            int du = dist[side][u];
+            for (int a = offsets[u]; a < offsets[u + 1]; a++) {
+                reach(side, targets[a], du + weights[a], a);
+            }
+            return u;
+        }
+
+        /** Distance de la plus proche des sources à target, ou {@link #INFINITY}. */
+        public int run(int[] sources, int target) {
+            begin(0);
+            begin(1);
+            settledCount = 0;
+            relaxedCount = 0;
+            meeting = -1;
+            for (int source : sources) reach(0, source, 0, -1);
+            reach(1, target, 0, -1);
+            int best = INFINITY;
+            while (!heaps[0].isEmpty() || !heaps[1].isEmpty()) {
+                int side;
+                if (heaps[0].isEmpty()) side = 1;
+                else if (heaps[1].isEmpty()) side = 0;
+                else side = heaps[0].peekKey() <= heaps[1].peekKey() ? 0 : 1;
+                if (heaps[side].peekKey() >= best) {
+                    heaps[side].clear(); // ce côté ne peut plus améliorer le raccord
+                    continue;
+                }
+                int u = settle(side);
+                int other = distance(1 - side, u);
+                if (other != INFINITY && dist[side][u] + other < best) {
+                    best = dist[side][u] + other;
+                    meeting = u;
+                }
+            }
+            return best;
+        }
+
+        public int run(int source, int target) {
+            return run(new int[]{source}, target);
+        }
+
+        /** Chemin complet (raccourcis dépliés) de la dernière recherche {@link #run}, ou null. */
+        public List<Node> path() {
+            if (meeting < 0) return null;
+            // côté source : arcs montants remontés depuis le point de raccord
+            int[] arcs = new int[16];
+            int count = 0;
+            for (int v = meeting; parent[0][v] >= 0; ) {
+                int a = parent[0][v];
+                if (count == arcs.length) arcs = Arrays.copyOf(arcs, count * 2);
+                arcs[count++] = a;
+                v = owner(a);
+            }
+            List<Node> path = new ArrayList<>();
+            path.add(graph.node(count == 0 ? meeting : owner(arcs[count - 1])));
+            for (int i = count - 1; i >= 0; i--) {
+                unpack(owner(arcs[i]), targets[arcs[i]], middles[arcs[i]], path);
+            }
+            // côté cible : arcs parcourus à l'envers, du raccord vers la cible
+            for (int v = meeting; parent[1][v] >= 0; ) {
+                int a = parent[1][v];
+                int from = owner(a);
+                unpack(v, from, middles[a], path);
+                v = from;
+            }
+            return path;
+        }
+
+        /** Nœuds fixés par le dernier appel (les deux côtés, ou toutes les recherches de {@link #distances}). */
+        public int settled() {
+            return settledCount;
+        }
+
+        /** Arcs montants relâchés par le dernier appel. */
+        public int relaxed() {
+            return relaxedCount;
+        }
+
+        /**
+         * Distances plusieurs-vers-plusieurs par seaux : une recherche montante complète par
+         * cible, dont chaque nœud fixé reçoit (cible, distance), puis une par ensemble de
+         * sources, qui lit les seaux des nœuds qu'elle fixe. {@code result[i][j]} est la
+         * distance de la plus proche des sources {@code sources[i]} à {@code targets[j]}.
+         */
+        public int[][] distances(int[][] sources, int[] targets) {
+            settledCount = 0;
+            relaxedCount = 0;
+            meeting = -1;
+            if (++bucketGeneration == 0) {
+                Arrays.fill(bucketStamp, 0);
+                bucketGeneration = 1;
+            }
+            int entries = 0;
+            for (int j = 0; j < targets.length; j++) {
+                int count = upward(1, new int[]{targets[j]});
+                for (int i = 0; i < count; i++) {
+                    int x = order[i];
+                    if (entries == bucketNext.length) {
+                        bucketNext = Arrays.copyOf(bucketNext, entries * 2);
+                        bucketTarget = Arrays.copyOf(bucketTarget, entries * 2);
+                        bucketDist = Arrays.copyOf(bucketDist, entries * 2);
+                    }
+                    bucketNext[entries] = bucketStamp[x] == bucketGeneration ? bucketHead[x] : -1;
+                    bucketTarget[entries] = j;
+                    bucketDist[entries] = dist[1][x];
+                    bucketHead[x] = entries++;
+                    bucketStamp[x] = bucketGeneration;
+                }
+            }
+
+            int[][] result = new int[sources.length][targets.length];
+            for (int i = 0; i < sources.length; i++) {
+                Arrays.fill(result[i], INFINITY);
+                int count = upward(0, sources[i]);
+                for (int k = 0; k < count; k++) {
+                    int x = order[k];
+                    if (bucketStamp[x] != bucketGeneration) continue;
+                    for (int e = bucketHead[x]; e >= 0; e = bucketNext[e]) {
+                        int d = dist[0][x] + bucketDist[e];
+                        if (d < result[i][bucketTarget[e]]) result[i][bucketTarget[e]] = d;
+                    }
+                }
+            }
+            return result;
+        }
+
+        // recherche montante complète d'un côté ; les nœuds fixés sont rangés dans order
+        private int upward(int side, int[] seeds) {
+            begin(side);
+            for (int seed : seeds) reach(side, seed, 0, -1);
+            int count = 0;
+            while (!heaps[side].isEmpty()) {
+                int u = settle(side);
+                if (count == order.length) order = Arrays.copyOf(order, count * 2);
+                order[count++] = u;
+            }
+            return count;
+        }
+    }
+
+    // propriétaire d'un arc montant : recherche dichotomique dans offsets
+    private int owner(int arc) {
+        int lo = 0, hi = rank.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (offsets[mid] <= arc) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    /** Empreinte de la topologie et des poids, pour vérifier qu'un fichier correspond au plan. */
+    static int fingerprint(CompiledGraph graph) {
+        CRC32 crc = new CRC32();
+        ByteBuffer buf = ByteBuffer.allocate(4 * (graph.offsets.length + 2 * graph.targets.length));
+        for (int v : graph.offsets) buf.putInt(v);
+        for (int v : graph.targets) buf.putInt(v);
+        for (int v : graph.weights) buf.putInt(v);
+        crc.update(buf.array());
+        return (int) crc.getValue();
+    }
+
+    public void write(Path file) throws IOException {
+        int n = rank.length, arcs = targets.length;
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + 4 * (2 * n + 1 + 3 * arcs) + 4);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(arcs).putInt(fingerprint(graph));
+        for (int v : rank) buf.putInt(v);
+        for (int v : offsets) buf.putInt(v);
+        for (int v : targets) buf.putInt(v);
+        for (int v : weights) buf.putInt(v);
+        for (int v : middles) buf.putInt(v);
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), 0, buf.position());
+        buf.putInt((int) crc.getValue());
+        Files.write(file, buf.array());
+    }
+
+    /** Relit une hiérarchie construite pour exactement ce graphe (mêmes arcs, mêmes poids). */
+    public static ContractionHierarchy load(Path file, CompiledGraph graph) throws IOException {
+        MappedByteBuffer buf;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buf.capacity() < HEADER_SIZE + 4 || buf.getInt(0) != MAGIC) {
+            throw new IOException("Pas une hiérarchie de contraction : " + file);
+        }
+        if (buf.getInt(4) != VERSION) {
+            throw new IOException("Version de hiérarchie non supportée : " + buf.getInt(4));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buf.slice(0, buf.capacity() - 4));
+        if ((int) crc.getValue() != buf.getInt(buf.capacity() - 4)) {
+            throw new IOException("Somme de contrôle invalide : " + file);
+        }
+        int n = buf.getInt(8), arcs = buf.getInt(12);
+        if (n != graph.size() || buf.getInt(16) != fingerprint(graph)) {
+            throw new IOException("Hiérarchie construite pour un autre plan ou d'autres poids : " + file);
+        }
+        buf.position(HEADER_SIZE);
+        int[] rank = ints(buf, n);
+        int[] offsets = ints(buf, n + 1);
+        int[] targets = ints(buf, arcs);
+        int[] weights = ints(buf, arcs);
+        int[] middles = ints(buf, arcs);
+        return new ContractionHierarchy(graph, rank, offsets, targets, weights, middles);
+    }
+
+    private static int[] ints(ByteBuffer buf, int count) {
+        int[] values = new int[count];
+        buf.asIntBuffer().get(values);
+        buf.position(buf.position() + 4 * count);
+        return values;
+    }
+
+    /** Contraction : adjacence dynamique (arcs vers les nœuds non contractés) et recherches de témoins. */
+    private static final class Builder {
+        private final CompiledGraph graph;
+        private final int n;
+        private final int[][] adjTo, adjWeight, adjMiddle;
+        private final int[] degree;
+        private final boolean[] contracted;
+        private final int[] deleted;
+        // arcs montants de chaque nœud, figés au moment de sa contraction
+        private final int[][] upTo, upWeight, upMiddle;
+
+        // recherche de témoins
+        private final int[] witness;
+        private final int[] witnessStamp;
+        private final int[] targetStamp;
+        private final IndexedHeap witnessHeap;
+        private int witnessGeneration;
+
+        Builder(CompiledGraph graph) {
+            this.graph = graph;
+            n = graph.size();
+            adjTo = new int[n][];
+            adjWeight = new int[n][];
+            adjMiddle = new int[n][];
+            degree = new int[n];
+            contracted = new boolean[n];
+            deleted = new int[n];
+            upTo = new int[n][];
+            upWeight = new int[n][];
+            upMiddle = new int[n][];
+            witness = new int[n];
+            witnessStamp = new int[n];
+            targetStamp = new int[n];
+            witnessHeap = new IndexedHeap(n);
+            for (int u = 0; u < n; u++) {
+                int size = Math.max(2, graph.offsets[u + 1] - graph.offsets[u]);
+                adjTo[u] = new int[size];
+                adjWeight[u] = new int[size];
+                adjMiddle[u] = new int[size];
+                for (int a = graph.offsets[u]; a < graph.offsets[u + 1]; a++) {
+                    if (graph.targets[a] != u) link(u, graph.targets[a], graph.weights[a], -1);
+                }
+            }
+        }
+
+        // arc u → v, en gardant le plus léger en cas de doublon
+        private void link(int u, int v, int weight, int middle) {
+            for (int i = 0; i < degree[u]; i++) {
+                if (adjTo[u][i] == v) {
+                    if (weight < adjWeight[u][i]) {
+                        adjWeight[u][i] = weight;
+                        adjMiddle[u][i] = middle;
+                    }
+                    return;
+                }
+            }
+            if (degree[u] == adjTo[u].length) {
+                int size = 2 * degree[u];
+                adjTo[u] = Arrays.copyOf(adjTo[u], size);
+                adjWeight[u] = Arrays.copyOf(adjWeight[u], size);
+                adjMiddle[u] = Arrays.copyOf(adjMiddle[u], size);
+            }
+            adjTo[u][degree[u]] = v;
+            adjWeight[u][degree[u]] = weight;
+            adjMiddle[u][degree[u]] = middle;
+            degree[u]++;
+        }
+
+        ContractionHierarchy build() {
+            IndexedHeap queue = new IndexedHeap(n);
+            for (int v = 0; v < n; v++) queue.push(v, priority(v));
+            int[] rank = new int[n];
+            int next = 0;
+            while (!queue.isEmpty()) {
+                int v = queue.poll();
+                int p = priority(v);
+                if (!queue.isEmpty() && p > queue.peekKey()) {
+                    queue.push(v, p); // priorité périmée : réévaluée et remise en file
+                    continue;
+                }
+                rank[v] = next++;
+                contract(v);
+                for (int i = 0; i < degree[v]; i++) {
+                    int u = adjTo[v][i];
+                    if (contracted[u]) continue;
+                    deleted[u]++;
+                    queue.push(u, priority(u)); // ne fait que baisser la clé ; les hausses sont vues au retrait
+                }
+            }
+
+            int[] offsets = new int[n + 1];
+            for (int v = 0; v < n; v++) offsets[v + 1] = offsets[v] + upTo[v].length;
+            int[] targets = new int[offsets[n]], weights = new int[offsets[n]], middles = new int[offsets[n]];
+            for (int v = 0; v < n; v++) {
+                System.arraycopy(upTo[v], 0, targets, offsets[v], upTo[v].length);
+                System.arraycopy(upWeight[v], 0, weights, offsets[v], upTo[v].length);
+                System.arraycopy(upMiddle[v], 0, middles, offsets[v], upTo[v].length);
+            }
+            return new ContractionHierarchy(graph, rank, offsets, targets, weights, middles);
+        }
+
+        // différence d'arêtes (raccourcis nécessaires − arcs retirés) + voisins déjà contractés
+        private int priority(int v) {
+            int active = 0;
+            for (int i = 0; i < degree[v]; i++) if (!contracted[adjTo[v][i]]) active++;
+            return shortcuts(v, false) - active + deleted[v];
+        }
+
+        private void contract(int v) {
+            shortcuts(v, true);
+            contracted[v] = true;
+            int count = 0;
+            for (int i = 0; i < degree[v]; i++) if (!contracted[adjTo[v][i]]) count++;
+            upTo[v] = new int[count];
+            upWeight[v] = new int[count];
+            upMiddle[v] = new int[count];
+            int k = 0;
+            for (int i = 0; i < degree[v]; i++) {
+                if (contracted[adjTo[v][i]]) continue;
+                upTo[v][k] = adjTo[v][i];
+                upWeight[v][k] = adjWeight[v][i];
+                upMiddle[v][k++] = adjMiddle[v][i];
+            }
+        }
+
+        // raccourcis u – w nécessaires si v est contracté ; ajoutés si apply
+        private int shortcuts(int v, boolean apply) {
+            int count = 0;
+            for (int i = 0; i < degree[v]; i++) {
+                int u = adjTo[v][i];
+                if (contracted[u]) continue;
+                // cibles de la recherche : les voisins suivants, chaque paire n'étant vue qu'une fois
+                nextGeneration();
+                int maxOut = 0, pending = 0;
+                for (int j = i + 1; j < degree[v]; j++) {
+                    int w = adjTo[v][j];
+                    if (contracted[w] || w == u) continue;
+                    maxOut = Math.max(maxOut, adjWeight[v][j]);
+                    if (targetStamp[w] != witnessGeneration) pending++;
+                    targetStamp[w] = witnessGeneration;
+                }
+                if (pending == 0) continue;
+                int viaU = adjWeight[v][i];
+                witnessSearch(u, v, viaU + maxOut, pending, apply ? WITNESS_LIMIT : ESTIMATE_LIMIT);
+                for (int j = i + 1; j < degree[v]; j++) {
+                    int w = adjTo[v][j];
+                    if (contracted[w] || w == u) continue;
+                    int via = viaU + adjWeight[v][j];
+                    int direct = witnessStamp[w] == witnessGeneration ? witness[w] : INFINITY;
+                    if (direct <= via) continue;
+                    count++;
+                    if (apply) {
+                        link(u, w, via, v);
+                        link(w, u, via, v);
+                    }
+                }
+            }
+            return count;
+        }
+
+        private void nextGeneration() {
+            if (++witnessGeneration == 0) {
+                Arrays.fill(witnessStamp, 0);
+                Arrays.fill(targetStamp, 0);
+                witnessGeneration = 1;
+            }
+        }
+
+        // Dijkstra local depuis source, sans passer par excluded, arrêté une fois les cibles
+        // fixées, au-delà de maxDistance ou après limit nœuds
+        private void witnessSearch(int source, int excluded, int maxDistance, int pending, int limit) {
+            witnessHeap.clear();
+            witnessStamp[source] = witnessGeneration;
+            witness[source] = 0;
+            witnessHeap.push(source, 0);
+            int settled = 0;
+            while (!witnessHeap.isEmpty() && settled++ < limit) {
+                int u = witnessHeap.poll();
+                int du = witness[u];
+                if (targetStamp[u] == witnessGeneration && --pending == 0) break;
+                for (int i = 0; i < degree[u]; i++) {
+                    int x = adjTo[u][i];
+                    if (x == excluded || contracted[x]) continue;
+                    int alt = du + adjWeight[u][i];
+                    if (alt > maxDistance) continue;
+                    if (witnessStamp[x] != witnessGeneration || alt < witness[x]) {
+                        witnessStamp[x] = witnessGeneration;
+                        witness[x] = alt;
+                        witnessHeap.push(x, alt);
+                    }
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage : java ContractionHierarchy <plan.json|plan.bin> <plan.ch>");
+            System.exit(1);
+        }
+        GraphData data = GraphData.load(Path.of(args[0]));
+        long start = System.nanoTime();
+        ContractionHierarchy hierarchy = build(data.compiled());
+        double seconds = (System.nanoTime() - start) / 1e9;
+        hierarchy.write(Path.of(args[1]));
+        System.out.printf("%d nœuds, %d arcs montants dont %d raccourcis, construite en %.2f s → %s%n",
+                data.nodes.size(), hierarchy.arcs(), hierarchy.shortcuts(), seconds, args[1]);
+    }
+}
@@ -0,0 +1,190 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dijkstra sur un {@link CompiledGraph} avec tableaux de travail réutilisables.
+ * Les distances ne sont pas remises à zéro entre deux requêtes : un tampon
+ * de génération indique quelles cases appartiennent à la requête courante.
+ * Une instance n'est pas partageable entre threads.
+ */
+public class DijkstraSearch {
+    public static final int INFINITY = Integer.MAX_VALUE;
+
+    private final CompiledGraph graph;
+    private final int[] dist;
+    private final int[] prev;
+    private final int[] stamp;
+    private final boolean[] settled;
+    private final IndexedHeap heap;
+    private int generation;
+    private int settledCount;
+    private int relaxedCount;
+
+    public DijkstraSearch(CompiledGraph graph) {
+        this.graph = graph;
+        int n = graph.size();
+        dist = new int[n];
+        prev = new int[n];
+        stamp = new int[n];
+        settled = new boolean[n];
+        heap = new IndexedHeap(n);
+    }
+
+    /** Version du graphe sur laquelle travaille ce tampon. */
+    public CompiledGraph graph() {
+        return graph;
+    }
+
+    /**
+     * Lance la recherche depuis {@code source} et s'arrête dès que {@code target}
+     * est fixé ({@code -1} pour explorer tout le graphe).
+     * Retourne la distance à la cible, ou {@link #INFINITY}.
+     */
+    public int run(int source, int target) {
+        return run(new int[]{source}, target);
+    }
+
+    /**
+     * Recherche multi-source : équivaut à une super-source reliée à chaque nœud de
+     * {@code sources} par un arc de poids nul, en un seul parcours du graphe.
+     */
+    public int run(int[] sources, int target) {
+        begin();
+        for (int source : sources) {
+            if (stamp[source] == generation) continue;
+            reach(source, 0, -1);
+            heap.push(source, 0);
+        }
+
+        int[] offsets = graph.offsets, targets = graph.targets, weights = graph.weights;
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            settled[u] = true;
+            settledCount++;
+            relaxedCount += offsets[u + 1] - offsets[u];
+            if (u == target) break;
+            int du = dist[u];
+            for (int a = offsets[u]; a < offsets[u + 1]; a++) {
+                int v = targets[a];
+                int alt = du + weights[a];
+                if (stamp[v] != generation) {
+                    reach(v, alt, u);
+                    heap.push(v, alt);
+                } else if (!settled[v] && alt < dist[v]) {
+                    dist[v] = alt;
+                    prev[v] = u;
+                    heap.push(v, alt);
+                }
+            }
+        }
+        return target < 0 ? 0 : distance(target);
+    }
+
+    /**
+     * A* vers {@code target} : la clé de tas ajoute à la distance une borne inférieure du
+     * reste, la distance euclidienne au but multipliée par le plus petit rapport poids /
+     * longueur des arêtes ({@link CompiledGraph#minRatio}). Borne cohérente, donc même
+     * distance que {@link #run(int, int)} en fixant moins de nœuds quand les poids suivent
+     * la géométrie du plan.
+     */
+    public int runGuided(int source, int target) {
+        begin();
+        double ratio = graph.minRatio() * (1 - 1e-9); // marge d'arrondi : la borne doit rester minorante
+        Node goal = graph.node(target);
+        reach(source, 0, -1);
+        heap.push(source, bound(source, goal, ratio));
+
+        int[] offsets = graph.offsets, targets = graph.targets, weights = graph.weights;
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            settled[u] = true;
+            settledCount++;
+            relaxedCount += offsets[u + 1] - offsets[u];
+            if (u == target) break;
+            int du = dist[u];
+            for (int a = offsets[u]; a < offsets[u + 1]; a++) {
+                int v = targets[a];
+                int alt = du + weights[a];
+                if (stamp[v] != generation) {
+                    reach(v, alt, u);
+                    heap.push(v, alt + bound(v, goal, ratio));
+                } else if (!settled[v] && alt < dist[v]) {
+                    dist[v] = alt;
+                    prev[v] = u;
+                    heap.push(v, alt + bound(v, goal, ratio));
+                }
+            }
+        }
+        return distance(target);
+    }
+
+    private int bound(int v, Node goal, double ratio) {
+        Node node = graph.node(v);
+        double dx = node.lon - goal.lon, dy = node.lat - goal.lat;
+        return (int) (ratio * Math.sqrt(dx * dx + dy * dy));
+    }
+
+    private void begin() {
+        if (++generation == 0) {
+            java.util.Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        heap.clear();
+        settledCount = 0;
+        relaxedCount = 0;
+    }
+
+    /** Nombre de nœuds fixés par la dernière recherche. */
+    public int settled() {
+        return settledCount;
+    }
+
+    /** Nombre d'arcs relâchés par la dernière recherche. */
+    public int relaxed() {
+        return relaxedCount;
+    }
+
+    private void reach(int v, int d, int from) {
+        stamp[v] = generation;
+        dist[v] = d;
+        prev[v] = from;
+        settled[v] = false;
+    }
+
+    /** Distance depuis la source de la dernière recherche (exacte si le nœud est fixé). */
+    public int distance(int v) {
+        return stamp[v] == generation ? dist[v] : INFINITY;
+    }
+
+    public int previous(int v) {
+        return stamp[v] == generation ? prev[v] : -1;
+    }
+
+    /** Recherche complète depuis {@code source}, figée dans un arbre indépendant du tampon. */
+    public ShortestPathTree tree(int source) {
+        return tree(new int[]{source});
+    }
+
+    /** Arbre multi-source : chaque chemin part de la source la plus proche. */
+    public ShortestPathTree tree(int[] sources) {
+        run(sources, -1);
+        int n = graph.size();
+        int[] d = new int[n];
+        int[] p = new int[n];
+        for (int v = 0; v < n; v++) {
+            d[v] = distance(v);
+            p[v] = previous(v);
+        }
+        return new ShortestPathTree(graph, sources.length == 1 ? sources[0] : -1, d, p);
+    }
+
+    /** Chemin source → v de la dernière recherche, ou null si v n'est pas atteint. */
+    public List<Node> path(int v) {
+        if (stamp[v] != generation || !settled[v]) return null;
+        int length = 0;
+        for (int at = v; at >= 0; at = prev[at]) length++;
+        Node[] steps = new Node[length];
+        for (int at = v; at >= 0; at = prev[at]) steps[--length] = graph.node(at);
+        return new ArrayList<>(List.of(steps));
+    }
+}
@@ -1,7 +1,6 @@
 public class Edge {
-    public Node from, to;
-    public int weight;
-    public boolean highlighted = false;
+    public final Node from, to;
+    public final int weight;
 
     public Edge(Node from, Node to, int weight) {
         this.from = from;
@@ -0,0 +1,153 @@
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Format binaire compilé d'un plan de magasin, relu par mappage mémoire sans passer par le JSON.
+ *
+ * <pre>
+ * en-tête  : magic "CTGB", version, nbNœuds, nbArêtes, nbArcs, minLon, maxLon, minLat, maxLat, taille des noms
+ * nœuds    : nbNœuds × (lon, lat, début du nom, longueur du nom)
+ * arêtes   : nbArêtes × (from, to, weight)
+ * CSR      : offsets[nbNœuds + 1], targets[nbArcs], weights[nbArcs], edgeIds[nbArcs]
+ * noms     : UTF-8 concaténés
+ * fin      : CRC32 de tout ce qui précède
+ * </pre>
+ *
+ * Usage : {@code java GraphBinary plan.json plan.bin [--max-snap=distance]}
+ */
+public class GraphBinary {
+    public static final int MAGIC = 0x43544742; // "CTGB"
+    public static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 * 6 + 8 * 4;
+
+    public static void write(GraphData data, Path file) throws IOException {
+        CompiledGraph g = data.compiled();
+        int n = g.size();
+        int arcs = g.targets.length;
+
+        byte[][] names = new byte[n][];
+        int poolSize = 0;
+        for (int i = 0; i < n; i++) {
+            names[i] = g.node(i).name.getBytes(StandardCharsets.UTF_8);
+            poolSize += names[i].length;
+        }
+
+        int size = HEADER_SIZE + n * 24 + data.edges.size() * 12 + (n + 1 + 3 * arcs) * 4 + poolSize + 4;
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(data.edges.size()).putInt(arcs)
+                .putDouble(data.minLon).putDouble(data.maxLon).putDouble(data.minLat).putDouble(data.maxLat)
+                .putInt(poolSize);
+
+        int nameOffset = 0;
+        for (int i = 0; i < n; i++) {
+            Node node = g.node(i);
+            buf.putDouble(node.lon).putDouble(node.lat).putInt(nameOffset).putInt(names[i].length);
+            nameOffset += names[i].length;
+        }
+        for (Edge edge : data.edges) {
+            buf.putInt(g.id(edge.from)).putInt(g.id(edge.to)).putInt(edge.weight);
+        }
+        for (int v : g.offsets) buf.putInt(v);
+        for (int v : g.targets) buf.putInt(v);
+        for (int v : g.weights) buf.putInt(v);
+        for (int v : g.edgeIds) buf.putInt(v);
+        for (byte[] name : names) buf.put(name);
+
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), 0, buf.position());
+        buf.putInt((int) crc.getValue());
+        Files.write(file, buf.array());
+    }
+
+    public static GraphData load(Path file) throws IOException {
+        try {
+            return read(file);
+        } catch (InternalError e) {
+            // accès à une page d'un fichier tronqué ou réécrit pendant qu'il est projeté en mémoire
+            throw new IOException("Fichier modifié pendant la lecture : " + file, e);
+        }
+    }
+
+    private static GraphData read(Path file) throws IOException {
+        MappedByteBuffer buf;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buf.capacity() < HEADER_SIZE + 4 || buf.getInt(0) != MAGIC) {
+            throw new IOException("Pas un graphe compilé : " + file);
+        }
+        if (buf.getInt(4) != VERSION) {
+            throw new IOException("Version de graphe compilé non supportée : " + buf.getInt(4));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buf.slice(0, buf.capacity() - 4));
+        if ((int) crc.getValue() != buf.getInt(buf.capacity() - 4)) {
+            throw new IOException("Somme de contrôle invalide : " + file);
+        }
+
+        buf.position(8);
+        int n = buf.getInt();
+        int edgeCount = buf.getInt();
+        int arcs = buf.getInt();
+        double[] bounds = {buf.getDouble(), buf.getDouble(), buf.getDouble(), buf.getDouble()};
+        int poolSize = buf.getInt();
+        int poolStart = buf.capacity() - 4 - poolSize;
+
+        Node[] nodes = new Node[n];
+        byte[] pool = new byte[poolSize];
+        buf.get(poolStart, pool);
+        for (int i = 0; i < n; i++) {
+            double lon = buf.getDouble(), lat = buf.getDouble();
+            int offset = buf.getInt(), length = buf.getInt();
+            nodes[i] = new Node(new String(pool, offset, length, StandardCharsets.UTF_8), lon, lat);
+        }
+
+        List<Edge> edges = new ArrayList<>(edgeCount);
+        for (int e = 0; e < edgeCount; e++) {
+            edges.add(new Edge(nodes[buf.getInt()], nodes[buf.getInt()], buf.getInt()));
+        }
+
+        int[] offsets = ints(buf, n + 1);
+        int[] targets = ints(buf, arcs);
+        int[] weights = ints(buf, arcs);
+        int[] edgeIds = ints(buf, arcs);
+        CompiledGraph compiled = new CompiledGraph(nodes, offsets, targets, weights, edgeIds);
+        return new GraphData(List.of(nodes), edges, bounds, compiled);
+    }
+
+    private static int[] ints(ByteBuffer buf, int count) {
+        int[] values = new int[count];
+        buf.asIntBuffer().get(values);
+        buf.position(buf.position() + 4 * count);
+        return values;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage : java GraphBinary <plan.json> <plan.bin> [--max-snap=distance]");
+            System.exit(1);
+        }
+        double maxSnap = Double.POSITIVE_INFINITY;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith("--max-snap=")) maxSnap = Double.parseDouble(args[i].substring(11));
+        }
+        GraphData data;
+        try (Reader reader = new InputStreamReader(Files.newInputStream(Path.of(args[0])), StandardCharsets.UTF_8)) {
+            data = new GraphData(reader, maxSnap);
+        }
+        data.reportStrays(args[0]);
+        write(data, Path.of(args[1]));
+        System.out.println(data.nodes.size() + " nœuds, " + data.edges.size() + " arêtes → " + args[1]);
+    }
+}
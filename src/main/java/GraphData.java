@@ -1,232 +1,513 @@
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
-
+import org.json.JSONTokener;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * Plan du magasin. Topologie immuable une fois chargée : une même instance peut être
+ * partagée entre l'interface et plusieurs threads de routage. Seuls les poids courants
+ * changent ({@link #updateWeights}), par publication d'un nouveau {@link CompiledGraph}.
+ */
 public class GraphData {
-    public List<Node> nodes = new ArrayList<>();
-    public List<Edge> edges = new ArrayList<>();
-    public double minLon, maxLon, minLat, maxLat;
+    // budget de l'heuristique qui prend le relais de Held-Karp au-delà de ses limites
+    private static final TourSolver LONG_LISTS = new HeuristicTourSolver(200);
+    private static final int MAX_REPORTED_STRAYS = 10;
+
+    private final List<Node> nodeList = new ArrayList<>();
+    private final List<Edge> edgeList = new ArrayList<>();
+    private final List<double[]> strays = new ArrayList<>();
+    public final List<Node> nodes = Collections.unmodifiableList(nodeList);
+    public final List<Edge> edges = Collections.unmodifiableList(edgeList);
+    public final double minLon, maxLon, minLat, maxLat;
+    public TourSolver solver = new HeldKarpSolver();
+    public SearchStrategy strategy = SearchStrategy.DIJKSTRA;
+    public RouteCache cache = new RouteCache(1024, 256);
+    // sommets de LineString trop loin de tout nœud (lon, lat), ignorés au chargement
+    public final List<double[]> strayVertices = Collections.unmodifiableList(strays);
+    private final double maxSnapDistance;
+    private SpatialIndex spatialIndex;
+    private final ProductIndex products;
+    private volatile CompiledGraph compiled;
+    // tampons de recherche réutilisables, un par thread de routage actif
+    private final Queue<DijkstraSearch> searches = new ConcurrentLinkedQueue<>();
+    private final Queue<BidirectionalSearch> bidirectionalSearches = new ConcurrentLinkedQueue<>();
+    private final Queue<ContractionHierarchy.Query> hierarchyQueries = new ConcurrentLinkedQueue<>();
+    private volatile ContractionHierarchy hierarchy;
 
     public GraphData(String json) {
-        parseGeoJSON(json);
+        this(json, Double.POSITIVE_INFINITY);
     }
 
-    private void parseGeoJSON(String content) {
-        JSONObject geojson = new JSONObject(content);
-        JSONArray features = geojson.getJSONArray("features");
+    public GraphData(String json, double maxSnapDistance) {
+        this(new StringReader(json), maxSnapDistance);
+    }
 
-        List<double[]> allCoords = new ArrayList<>();
+    public GraphData(Reader reader) {
+        this(reader, Double.POSITIVE_INFINITY);
+    }
 
-        for (int i = 0; i < features.length(); i++) {
-            JSONObject geom = features.getJSONObject(i).getJSONObject("geometry");
-            if (geom.getString("type").equals("Point")) {
-                JSONArray coords = geom.getJSONArray("coordinates");
-                allCoords.add(new double[]{coords.getDouble(0), coords.getDouble(1)});
-            } else if (geom.getString("type").equals("LineString")) {
-                JSONArray coords = geom.getJSONArray("coordinates");
-                for (int j = 0; j < coords.length(); j++) {
-                    JSONArray point = coords.getJSONArray(j);
-                    allCoords.add(new double[]{point.getDouble(0), point.getDouble(1)});
-                }
-            }
+    public GraphData(Reader reader, double maxSnapDistance) {
+        long started = RoutingMetrics.start();
+        this.maxSnapDistance = maxSnapDistance;
+        double[] bounds = parseGeoJSON(reader);
+        minLon = bounds[0];
+        maxLon = bounds[1];
+        minLat = bounds[2];
+        maxLat = bounds[3];
+        compiled = new CompiledGraph(nodeList, edgeList);
+        products = new ProductIndex(nodeList);
+        RoutingMetrics.parsed(started);
+    }
+
+    // graphe déjà compilé, par exemple relu depuis un fichier binaire (voir GraphBinary)
+    GraphData(List<Node> nodes, List<Edge> edges, double[] bounds, CompiledGraph compiled) {
+        this.maxSnapDistance = Double.POSITIVE_INFINITY;
+        nodeList.addAll(nodes);
+        edgeList.addAll(edges);
+        minLon = bounds[0];
+        maxLon = bounds[1];
+        minLat = bounds[2];
+        maxLat = bounds[3];
+        spatialIndex = new SpatialIndex(nodeList);
+        this.compiled = compiled;
+        products = new ProductIndex(nodeList);
+    }
+
+    /** Charge un plan GeoJSON, ou un graphe compilé si le fichier se termine par .bin. */
+    public static GraphData load(Path file) throws IOException {
+        return load(file, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Comme {@link #load(Path)} ; les sommets de LineString à plus de {@code maxSnapDistance}
+     * (unités du plan) de tout nœud sont ignorés. Sans effet sur un graphe compilé.
+     */
+    public static GraphData load(Path file, double maxSnapDistance) throws IOException {
+        if (file.toString().endsWith(".bin")) {
+            long started = RoutingMetrics.start();
+            GraphData data = GraphBinary.load(file);
+            RoutingMetrics.parsed(started);
+            return data;
         }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return new GraphData(reader, maxSnapDistance);
+        }
+    }
 
-        minLon = allCoords.stream().mapToDouble(c -> c[0]).min().orElse(0);
-        maxLon = allCoords.stream().mapToDouble(c -> c[0]).max().orElse(1);
-        minLat = allCoords.stream().mapToDouble(c -> c[1]).min().orElse(0);
-        maxLat = allCoords.stream().mapToDouble(c -> c[1]).max().orElse(1);
+    public CompiledGraph compiled() {
+        return compiled;
+    }
 
-        for (int i = 0; i < features.length(); i++) {
-            JSONObject f = features.getJSONObject(i);
-            JSONObject geom = f.getJSONObject("geometry");
-            if (geom.getString("type").equals("Point")) {
-                JSONArray coords = geom.getJSONArray("coordinates");
-                String name = f.getJSONObject("properties").optString("name", "Node" + nodes.size());
-                nodes.add(new Node(name, coords.getDouble(0), coords.getDouble(1)));
-            }
+    /**
+     * Change le poids courant des arêtes {@code edgeIndices} (indices dans {@link #edges}),
+     * par exemple selon l'affluence dans les allées ; {@link Edge#weight} reste le poids de
+     * base. Les arbres en cache sont réparés, pas recalculés. Les requêtes déjà lancées
+     * terminent sur l'ancienne version.
+     */
+    public synchronized void updateWeights(int[] edgeIndices, int[] newWeights) {
+        if (edgeIndices.length != newWeights.length) {
+            throw new IllegalArgumentException("Autant de poids que d'arêtes attendus");
         }
+        CompiledGraph old = compiled;
+        CompiledGraph updated = old.withWeights(edgeIndices, newWeights);
+        compiled = updated;
+        cache.repair(old, updated, edgeIndices);
+    }
 
-        for (int i = 0; i < features.length(); i++) {
-            JSONObject f = features.getJSONObject(i);
-            JSONObject geom = f.getJSONObject("geometry");
-            if (geom.getString("type").equals("LineString")) {
-                JSONArray coords = geom.getJSONArray("coordinates");
-                int weight = f.getJSONObject("properties").optInt("weight", 1);
-                for (int j = 0; j < coords.length() - 1; j++) {
-                    Node from = findClosest(coords.getJSONArray(j));
-                    Node to = findClosest(coords.getJSONArray(j + 1));
-                    if (from != null && to != null) {
-                        edges.add(new Edge(from, to, weight));
-                    }
-                }
-            }
+    public void updateWeight(int edgeIndex, int newWeight) {
+        updateWeights(new int[]{edgeIndex}, new int[]{newWeight});
+    }
+
+    /**
+     * Installe une hiérarchie de contraction construite pour les poids courants, utilisée
+     * par la stratégie {@link SearchStrategy#CONTRACTION_HIERARCHY}.
+     */
+    public void useHierarchy(ContractionHierarchy hierarchy) {
+        if (hierarchy != null && hierarchy.graph() != compiled) {
+            throw new IllegalArgumentException("Hiérarchie construite pour une autre version du graphe");
         }
+        this.hierarchy = hierarchy;
     }
 
-    private Node findClosest(JSONArray coord) {
-        double lon = coord.getDouble(0);
-        double lat = coord.getDouble(1);
-        return nodes.stream()
-                .min(Comparator.comparingDouble(n -> Math.hypot(n.lon - lon, n.lat - lat)))
-                .orElse(null);
+    /** Relit une hiérarchie préparée hors ligne (voir {@link ContractionHierarchy#main}) et l'installe. */
+    public void loadHierarchy(Path file) throws IOException {
+        useHierarchy(ContractionHierarchy.load(file, compiled));
     }
 
-    public void clearHighlights() {
-        for (Edge e : edges) e.highlighted = false;
+    /** Hiérarchie installée, ou null s'il n'y en a pas ou si les poids ont changé depuis. */
+    public ContractionHierarchy hierarchy() {
+        ContractionHierarchy h = hierarchy;
+        return h != null && h.graph() == compiled ? h : null;
     }
 
-    public void highlightPath(List<Node> path) {
-        for (int i = 0; i < path.size() - 1; i++) {
-            Node from = path.get(i);
-            Node to = path.get(i + 1);
-            for (Edge edge : edges) {
-                if (edge.from == from && edge.to == to) {
-                    edge.highlighted = true;
-                    break;
+    /** Poids courant de l'arête d'indice {@code edgeIndex}. */
+    public int weight(int edgeIndex) {
+        int w = compiled.weight(edgeIndex);
+        return w < 0 ? edgeList.get(edgeIndex).weight : w;
+    }
+
+    /**
+     * Lecture en un seul passage : les features sont décodées une par une depuis le flux,
+     * la bbox est mise à jour au fil de l'eau et les LineString sont gardées sous forme
+     * de coordonnées brutes jusqu'à ce que tous les nœuds soient connus.
+     */
+    private double[] parseGeoJSON(Reader reader) {
+        JSONTokener tokener = new JSONTokener(reader);
+        if (tokener.nextClean() != '{') throw tokener.syntaxError("A JSONObject text must begin with '{'");
+
+        double[] lineCoords = new double[64];
+        int coordCount = 0;
+        List<int[]> lines = new ArrayList<>(); // {premier sommet, nombre de sommets, poids}
+        boolean hasFeatures = false;
+        double lonMin = Double.POSITIVE_INFINITY, lonMax = Double.NEGATIVE_INFINITY;
+        double latMin = Double.POSITIVE_INFINITY, latMax = Double.NEGATIVE_INFINITY;
+
+        char c = tokener.nextClean();
+        while (c != '}') {
+            tokener.back();
+            String key = tokener.nextValue().toString();
+            if (tokener.nextClean() != ':') throw tokener.syntaxError("Expected a ':' after a key");
+
+            if (!key.equals("features")) {
+                tokener.nextValue();
+            } else {
+                hasFeatures = true;
+                if (tokener.nextClean() != '[') throw tokener.syntaxError("A JSONArray text must start with '['");
+                c = tokener.nextClean();
+                while (c != ']') {
+                    tokener.back();
+                    JSONObject f = new JSONObject(tokener);
+                    JSONObject geom = f.getJSONObject("geometry");
+                    if (geom.getString("type").equals("Point")) {
+                        JSONArray coords = geom.getJSONArray("coordinates");
+                        double lon = coords.getDouble(0), lat = coords.getDouble(1);
+                        String name = f.getJSONObject("properties").optString("name", "Node" + nodeList.size());
+                        nodeList.add(new Node(name, lon, lat));
+                        lonMin = Math.min(lonMin, lon);
+                        lonMax = Math.max(lonMax, lon);
+                        latMin = Math.min(latMin, lat);
+                        latMax = Math.max(latMax, lat);
+                    } else if (geom.getString("type").equals("LineString")) {
+                        JSONArray coords = geom.getJSONArray("coordinates");
+                        int weight = f.getJSONObject("properties").optInt("weight", 1);
+                        lines.add(new int[]{coordCount / 2, coords.length(), weight});
+                        if (lineCoords.length < coordCount + 2 * coords.length()) {
+                            lineCoords = Arrays.copyOf(lineCoords, Math.max(2 * lineCoords.length, coordCount + 2 * coords.length()));
+                        }
+                        for (int j = 0; j < coords.length(); j++) {
+                            JSONArray point = coords.getJSONArray(j);
+                            double lon = point.getDouble(0), lat = point.getDouble(1);
+                            lineCoords[coordCount++] = lon;
+                            lineCoords[coordCount++] = lat;
+                            lonMin = Math.min(lonMin, lon);
+                            lonMax = Math.max(lonMax, lon);
+                            latMin = Math.min(latMin, lat);
+                            latMax = Math.max(latMax, lat);
+                        }
+                    }
+                    c = tokener.nextClean();
+                    if (c == ',') c = tokener.nextClean();
+                    else if (c != ']') throw tokener.syntaxError("Expected a ',' or ']'");
                 }
             }
+
+            c = tokener.nextClean();
+            if (c == ',') c = tokener.nextClean();
+            else if (c != '}') throw tokener.syntaxError("Expected a ',' or '}'");
         }
-    }
+        if (!hasFeatures) throw new JSONException("JSONObject[\"features\"] not found.");
 
-    public int calculateWeight(List<Node> path) {
-        int total = 0;
-        for (int i = 0; i < path.size() - 1; i++) {
-            Node from = path.get(i);
-            Node to = path.get(i + 1);
-            for (Edge edge : edges) {
-                if (edge.from == from && edge.to == to) {
-                    total += edge.weight;
-                    break;
+        spatialIndex = new SpatialIndex(nodeList);
+
+        for (int[] line : lines) {
+            int first = line[0], count = line[1], weight = line[2];
+            Node from = count > 1 ? findClosest(lineCoords[2 * first], lineCoords[2 * first + 1]) : null;
+            for (int j = 1; j < count; j++) {
+                Node to = findClosest(lineCoords[2 * (first + j)], lineCoords[2 * (first + j) + 1]);
+                if (from != null && to != null) {
+                    edgeList.add(new Edge(from, to, weight));
                 }
+                from = to;
             }
         }
-        return total;
+
+        boolean empty = lonMin > lonMax;
+        return empty ? new double[]{0, 1, 0, 1} : new double[]{lonMin, lonMax, latMin, latMax};
     }
 
-    public void normalize(double width, double height) {
-        double padding = 50;
-        for (Node node : nodes) {
-            double normX = (node.lon - minLon) / (maxLon - minLon);
-            double normY = (node.lat - minLat) / (maxLat - minLat);
-            node.x = padding + normX * (width - 2 * padding);
-            node.y = padding + (1 - normY) * (height - 2 * padding);
+    private Node findClosest(double lon, double lat) {
+        Node closest = spatialIndex.nearest(lon, lat, maxSnapDistance);
+        if (closest == null && !nodeList.isEmpty()) {
+            strays.add(new double[]{lon, lat});
         }
+        return closest;
     }
 
-    public List<Node> getPath(Node start, Node end, List<Node> mustVisit) {
-        if (mustVisit.isEmpty()) {
-            return dijkstra(start, end);
+    /**
+     * Pour les outils en ligne de commande : une ligne sur la sortie d'erreur si des sommets
+     * ont été ignorés au chargement ({@link #strayVertices}), avec les premiers d'entre eux.
+     */
+    public void reportStrays(String source) {
+        if (strays.isEmpty()) return;
+        StringJoiner points = new StringJoiner(", ");
+        for (int i = 0; i < Math.min(strays.size(), MAX_REPORTED_STRAYS); i++) {
+            points.add("(" + strays.get(i)[0] + ", " + strays.get(i)[1] + ")");
         }
+        if (strays.size() > MAX_REPORTED_STRAYS) points.add("…");
+        System.err.println("Sommets ignorés (" + source + ") : " + strays.size() + " à plus de "
+                + maxSnapDistance + " de tout nœud, " + points);
+    }
 
-        List<Node> bestPath = null;
-        int bestCost = Integer.MAX_VALUE;
-
-        // toutes les permutations de mustVisit
-        List<List<Node>> permutations = new ArrayList<>();
-        permute(new ArrayList<>(mustVisit), 0, permutations);
+    public SpatialIndex spatialIndex() {
+        return spatialIndex;
+    }
 
-        for (List<Node> perm : permutations) {
-            List<Node> currentPath = new ArrayList<>();
-            int currentCost = 0;
-            Node current = start;
-            boolean failed = false;
+    /** Produit → nœuds candidats, construit au chargement. */
+    public ProductIndex products() {
+        return products;
+    }
 
-            for (Node next : perm) {
-                List<Node> segment = dijkstra(current, next);
-                if (segment == null || segment.size() < 2) {
-                    failed = true;
-                    break;
-                }
-                if (!currentPath.isEmpty()) {
-                    segment.remove(0); // éviter doublon
-                }
-                currentPath.addAll(segment);
-                currentCost += calculateWeight(segment);
-                current = next;
-            }
+    /** Arêtes parcourues et coûts cumulés du chemin, avec les poids courants. */
+    public RoutePath trace(List<Node> path) {
+        return RoutePath.of(compiled, path);
+    }
 
-            if (failed) continue;
+    /** Indices dans {@code edges} des arêtes parcourues par le chemin, dans un sens ou dans l'autre. */
+    public BitSet pathEdges(List<Node> path) {
+        return trace(path).edgeSet();
+    }
 
-            // dernier segment vers la sortie
-            List<Node> segmentToEnd = dijkstra(current, end);
-            if (segmentToEnd == null || segmentToEnd.size() < 2) {
-                continue;
-            }
-            segmentToEnd.remove(0);
-            currentPath.addAll(segmentToEnd);
-            currentCost += calculateWeight(segmentToEnd);
+    public int calculateWeight(List<Node> path) {
+        return trace(path).cost();
+    }
 
-            if (currentCost < bestCost) {
-                bestCost = currentCost;
-                bestPath = currentPath;
-            }
+    /** Coordonnées écran des nœuds pour un canevas donné : x en 2·i, y en 2·i+1. */
+    public double[] normalize(double width, double height) {
+        double padding = 50;
+        double[] screen = new double[2 * nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            double normX = (node.lon - minLon) / (maxLon - minLon);
+            double normY = (node.lat - minLat) / (maxLat - minLat);
+            screen[2 * i] = padding + normX * (width - 2 * padding);
+            screen[2 * i + 1] = padding + (1 - normY) * (height - 2 * padding);
         }
-
-        return bestPath;
+        return screen;
     }
 
+    public List<Node> getPath(Node start, Node end, List<Node> mustVisit) {
+        return getPath(start, end, mustVisit, tour -> { });
+    }
 
+    /** Comme {@link #getPath(Node, Node, List)}, en signalant chaque meilleur parcours trouvé en cours de route. */
+    public List<Node> getPath(Node start, Node end, List<Node> mustVisit, TourSolver.TourListener listener) {
+        return getPathGroups(start, end, TourSolver.singletons(mustVisit), listener);
+    }
 
-
-
-    private void permute(List<Node> nodes, int i, List<List<Node>> result) {
-        if (i == nodes.size()) {
-            result.add(new ArrayList<>(nodes));
-            return;
+    /**
+     * TSP généralisé : un nœud quelconque de chaque groupe (non vide) suffit, par exemple
+     * l'un des rayons d'un produit présent à plusieurs endroits (voir {@link ProductIndex}).
+     * Une instance que {@link HeldKarpSolver} refuserait est confiée à une heuristique à
+     * budget fixe ({@link HeuristicTourSolver}).
+     */
+    public List<Node> getPathGroups(Node start, Node end, List<List<Node>> groups, TourSolver.TourListener listener) {
+        TourSolver solver = this.solver;
+        if (solver instanceof HeldKarpSolver && !HeldKarpSolver.fits(groups)) solver = LONG_LISTS;
+        CompiledGraph compiled = this.compiled;
+        int[][] ids = new int[groups.size()][];
+        for (int g = 0; g < ids.length; g++) {
+            ids[g] = groups.get(g).stream().mapToInt(compiled::id).toArray();
         }
-        for (int j = i; j < nodes.size(); j++) {
-            Collections.swap(nodes, i, j);
-            permute(nodes, i + 1, result);
-            Collections.swap(nodes, i, j);
+        RouteCache.RouteKey key = new RouteCache.RouteKey(compiled.id(start), compiled.id(end), ids, solver);
+        List<Node> cached = cache.route(compiled, key);
+        RoutingMetrics.routeCache(cached != null);
+        if (cached != null) return cached;
+
+        List<Node> path;
+        if (groups.isEmpty()) {
+            path = dijkstra(start, end);
+        } else {
+            long started = RoutingMetrics.start();
+            Tour tour = groups.stream().allMatch(g -> g.size() == 1)
+                    ? solver.solve(this, start, end, groups.stream().map(g -> g.get(0)).toList(), listener)
+                    : solver.solveGroups(this, start, end, groups, listener);
+            RoutingMetrics.toured(started, tour == null ? 0 : tour.iterations);
+            path = tour == null ? null : tour.path;
         }
+        if (path != null) cache.putRoute(compiled, key, path);
+        return path;
     }
 
+    /**
+     * Mode « n'importe quelle entrée / n'importe quelle sortie » : les entrées forment une
+     * super-source (une seule recherche multi-source), les sorties partagent la même
+     * {@link LegMatrix}. Un nœud quelconque de chaque groupe suffit. Avec un solveur exact
+     * ({@link #solver} autre que {@link HeuristicTourSolver}), la programmation dynamique de
+     * Held-Karp est partagée entre les sorties ; avec l'heuristique, configurée ou au-delà
+     * des limites de Held-Karp, son budget est réparti entre elles.
+     * Retourne, dans l'ordre de {@code ends}, le meilleur parcours finissant à chaque
+     * sortie (null si elle est inaccessible). {@code listener} reçoit chaque parcours
+     * meilleur que les précédents, toutes sorties confondues, le meilleur en dernier.
+     * Non mis en cache.
+     */
+    public List<Tour> getPathsByExit(List<Node> starts, List<Node> ends, List<List<Node>> groups,
+                                     TourSolver.TourListener listener) {
+        TourSolver solver = this.solver;
+        if (!(solver instanceof HeuristicTourSolver) && !HeldKarpSolver.fits(groups)) solver = LONG_LISTS;
+        LegMatrix legs = new LegMatrix(this, starts, ends, groups);
+        if (solver instanceof HeuristicTourSolver heuristic) {
+            int[] bestCost = {LegMatrix.INFINITY};
+            return heuristic.solveByExit(legs, tour -> {
+                if (tour.cost >= bestCost[0]) return;
+                bestCost[0] = tour.cost;
+                listener.improved(tour);
+            });
+        }
 
+        int[][] orders = new HeldKarpSolver().solveByExit(legs);
+        List<Tour> tours = new ArrayList<>(orders.length);
+        Tour best = null;
+        for (int e = 0; e < orders.length; e++) {
+            int[] order = orders[e];
+            Tour tour = order == null ? null : new Tour(legs.path(order, e), legs.tourCost(order, e));
+            if (tour != null && (best == null || tour.cost < best.cost)) best = tour;
+            tours.add(tour);
+        }
+        if (best != null) listener.improved(best);
+        return tours;
+    }
 
-    private List<Node> dijkstra(Node start, Node end) {
-        Map<Node, Integer> dist = new HashMap<>();
-        Map<Node, Node> prev = new HashMap<>();
-        Set<Node> unvisited = new HashSet<>(nodes);
-
-        for (Node node : nodes) dist.put(node, Integer.MAX_VALUE);
-        dist.put(start, 0);
+    /** Plus court chemin point à point, selon {@link #strategy}. */
+    public List<Node> dijkstra(Node start, Node end) {
+        CompiledGraph compiled = this.compiled;
+        int source = compiled.id(start);
+        int target = compiled.id(end);
+        if (source < 0 || target < 0) return null;
+
+        long started = RoutingMetrics.start();
+        ContractionHierarchy hierarchy = strategy == SearchStrategy.CONTRACTION_HIERARCHY ? hierarchy() : null;
+        if (hierarchy != null && hierarchy.graph() == compiled) {
+            ContractionHierarchy.Query query = acquire(hierarchy);
+            try {
+                query.run(source, target);
+                return query.path();
+            } finally {
+                RoutingMetrics.searched(started, query.settled(), query.relaxed());
+                hierarchyQueries.offer(query);
+            }
+        }
+        if (strategy == SearchStrategy.BIDIRECTIONAL) {
+            BidirectionalSearch search = bidirectionalSearches.poll();
+            while (search != null && search.graph() != compiled) search = bidirectionalSearches.poll();
+            if (search == null) search = new BidirectionalSearch(compiled);
+            try {
+                search.run(source, target);
+                return search.path();
+            } finally {
+                RoutingMetrics.searched(started, search.settled(), search.relaxed());
+                bidirectionalSearches.offer(search);
+            }
+        }
 
-        while (!unvisited.isEmpty()) {
-            Node current = unvisited.stream().min(Comparator.comparingInt(dist::get)).orElse(null);
-            if (current == null || current.equals(end)) break;
+        DijkstraSearch search = acquire(compiled);
+        try {
+            if (strategy == SearchStrategy.A_STAR) search.runGuided(source, target);
+            else search.run(source, target);
+            return search.path(target);
+        } finally {
+            RoutingMetrics.searched(started, search.settled(), search.relaxed());
+            release(search);
+        }
+    }
 
-            unvisited.remove(current);
+    public ShortestPathTree tree(Node source) {
+        CompiledGraph compiled = this.compiled;
+        int id = compiled.id(source);
+        ShortestPathTree tree = cache.tree(compiled, id);
+        RoutingMetrics.treeCache(tree != null);
+        if (tree != null) return tree;
+
+        long started = RoutingMetrics.start();
+        DijkstraSearch search = acquire(compiled);
+        try {
+            tree = search.tree(id);
+        } finally {
+            RoutingMetrics.treeSearched(started, search.settled(), search.relaxed());
+            release(search);
+        }
+        cache.putTree(compiled, tree);
+        return tree;
+    }
 
-            for (Edge edge : edges) {
-                // Sens normal
-                if (edge.from == current && unvisited.contains(edge.to)) {
-                    int alt = dist.get(current) + edge.weight;
-                    if (alt < dist.get(edge.to)) {
-                        dist.put(edge.to, alt);
-                        prev.put(edge.to, current);
-                    }
-                }
+    /** Arbre multi-source (non mis en cache, sauf s'il n'y a qu'une source). */
+    public ShortestPathTree tree(List<Node> sources) {
+        if (sources.size() == 1) return tree(sources.get(0));
+        CompiledGraph compiled = this.compiled;
+        int[] ids = new int[sources.size()];
+        for (int i = 0; i < ids.length; i++) ids[i] = compiled.id(sources.get(i));
+
+        long started = RoutingMetrics.start();
+        DijkstraSearch search = acquire(compiled);
+        try {
+            return search.tree(ids);
+        } finally {
+            RoutingMetrics.treeSearched(started, search.settled(), search.relaxed());
+            release(search);
+        }
+    }
 
-                // Sens inverse
-                if (edge.to == current && unvisited.contains(edge.from)) {
-                    int alt = dist.get(current) + edge.weight;
-                    if (alt < dist.get(edge.from)) {
-                        dist.put(edge.from, alt);
-                        prev.put(edge.from, current);
-                    }
-                }
-            }
+    // les tampons d'une version antérieure des poids sont abandonnés au passage
+    private DijkstraSearch acquire(CompiledGraph compiled) {
+        DijkstraSearch search;
+        while ((search = searches.poll()) != null) {
+            if (search.graph() == compiled) return search;
         }
+        return new DijkstraSearch(compiled);
+    }
+
+    private void release(DijkstraSearch search) {
+        searches.offer(search);
+    }
 
-        if (!prev.containsKey(end) && !start.equals(end)) return null;
+    // distances entre arrêts d'un parcours (voir LegMatrix)
+    int[][] hierarchyDistances(ContractionHierarchy hierarchy, int[][] sources, int[] targets) {
+        long started = RoutingMetrics.start();
+        ContractionHierarchy.Query query = acquire(hierarchy);
+        try {
+            return query.distances(sources, targets);
+        } finally {
+            RoutingMetrics.treeSearched(started, query.settled(), query.relaxed());
+            hierarchyQueries.offer(query);
+        }
+    }
 
-        List<Node> path = new ArrayList<>();
-        for (Node at = end; at != null; at = prev.get(at)) {
-            path.add(0, at);
+    List<Node> hierarchyPath(ContractionHierarchy hierarchy, int[] sources, int target) {
+        long started = RoutingMetrics.start();
+        ContractionHierarchy.Query query = acquire(hierarchy);
+        try {
+            query.run(sources, target);
+            return query.path();
+        } finally {
+            RoutingMetrics.searched(started, query.settled(), query.relaxed());
+            hierarchyQueries.offer(query);
         }
+    }
 
-        return path;
+    private ContractionHierarchy.Query acquire(ContractionHierarchy hierarchy) {
+        ContractionHierarchy.Query query;
+        while ((query = hierarchyQueries.poll()) != null) {
+            if (query.hierarchy() == hierarchy) return query;
+        }
+        return hierarchy.query();
     }
 
 }
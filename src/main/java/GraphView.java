@@ -1,3 +1,5 @@
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.layout.Pane;
@@ -5,14 +7,73 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import javafx.scene.image.Image;
 
+/**
+ * Plan du magasin en trois couches superposées : arêtes, itinéraire, étiquettes et icônes.
+ * Les couches fixes ne sont redessinées qu'au changement de taille, de vue (au plus une
+ * fois par impulsion) ou de poids ; un nouvel itinéraire ne redessine que sa couche.
+ * Molette : zoom autour du curseur ; glisser : déplacement ; double clic : plan entier.
+ * Seul ce qui recoupe la fenêtre est dessiné ({@link ViewIndex}) ; vu de loin, les nœuds
+ * proches sont agrégés et les poids et icônes masqués. Le plan peut être remplacé à chaud
+ * ({@link #setGraph}) sans bloquer le thread JavaFX.
+ */
 public class GraphView extends Pane {
-    private final Canvas canvas;
-    private final GraphicsContext gc;
-    public final GraphData data;
+    private static final Color EDGE_COLOR = Color.web("#4e5c68");
+    private static final Color ROUTE_COLOR = Color.web("#FF7043");
+    private static final Color LABEL_BACKGROUND = Color.web("#2e2e2e");
+    private static final Color LABEL_TEXT = Color.web("#e0e0e0");
+    private static final Font WEIGHT_FONT = Font.font("Segoe UI", FontWeight.SEMI_BOLD, 13);
+    private static final Font NODE_FONT = Font.font("Segoe UI", FontWeight.BOLD, 14);
+    private static final double PADDING = 50;
+    // taille d'une cellule à l'écran sous laquelle on passe au niveau agrégé suivant
+    private static final double AGGREGATE_PIXELS = 14;
+    // taille d'une cellule du niveau 0 à l'écran à partir de laquelle poids et icônes sont dessinés
+    private static final double DETAIL_PIXELS = 40;
+    private static final double MIN_ZOOM = 0.5, MAX_ZOOM = 500;
+
+    private final Canvas edgeLayer = new Canvas(1000, 700);
+    private final Canvas routeLayer = new Canvas(1000, 700);
+    private final Canvas labelLayer = new Canvas(1000, 700);
+    // plan affiché, remplacé d'un bloc sur le thread JavaFX ; le moteur est lu par le thread de routage
+    private GraphData data;
+    private volatile RoutingEngine engine;
+    private final AsyncRouter router = new AsyncRouter(() -> engine);
+    // état d'affichage, propre à la vue : le graphe lui-même reste immuable
+    private BitSet highlighted = new BitSet();
+    // requête asynchrone courante et dernier résultat intermédiaire pas encore affiché
+    private int requestCount;
+    private final AtomicReference<Progress> pendingProgress = new AtomicReference<>();
+
+    private record Progress(int request, Route route, Consumer<Route> onRoute) {
+    }
+
+    // résolus une fois par plan : index d'affichage, icône et texte de chaque nœud
+    private ViewIndex index;
+    private Image[] icons;
+    private String[] labels;
+    // vue : zoom et déplacement par rapport au plan ajusté à la fenêtre
+    private double zoom = 1, panX, panY;
+    private double dragX, dragY;
+    // fond actuellement dessiné : écran = (ax·lon + bx, ay·lat + by), taille, niveau et version des poids
+    private double ax, bx, ay, by;
+    private double drawnWidth, drawnHeight;
+    private int level;
+    private boolean detail;
+    private CompiledGraph drawnGraph;
+    // changements de taille et de vue regroupés : un seul rendu à la prochaine impulsion
+    private final AnimationTimer repaint = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            stop();
+            redraw();
+        }
+    };
 
     private final Image entreeImage = new Image(getClass().getResourceAsStream("/images/entree.png"));
     private final Image caisseImage = new Image(getClass().getResourceAsStream("/images/caisse.png"));
@@ -24,115 +85,315 @@ public class GraphView extends Pane {
     private final Image viandeImage = new Image(getClass().getResourceAsStream("/images/viande.png"));
 
     public GraphView(String jsonContent) {
-        this.canvas = new Canvas(1000, 700);
-        this.gc = canvas.getGraphicsContext2D();
-        this.getChildren().add(canvas);
-        this.data = new GraphData(jsonContent);
+        this(new GraphData(jsonContent));
+    }
+
+    public GraphView(GraphData data) {
+        this.getChildren().addAll(edgeLayer, routeLayer, labelLayer);
+        apply(new Layout(data));
 
 // GraphView background
         setStyle("-fx-background-color: linear-gradient(to bottom right, #f5f5f5, #dcedc8);");
 
 
-        widthProperty().addListener((obs, o, n) -> draw());
-        heightProperty().addListener((obs, o, n) -> draw());
+        widthProperty().addListener((obs, o, n) -> repaint.start());
+        heightProperty().addListener((obs, o, n) -> repaint.start());
+        setOnScroll(event -> zoomAt(event.getX(), event.getY(), Math.pow(1.002, event.getDeltaY())));
+        setOnMousePressed(event -> {
+            dragX = event.getX();
+            dragY = event.getY();
+        });
+        setOnMouseDragged(event -> {
+            panX += event.getX() - dragX;
+            panY += event.getY() - dragY;
+            dragX = event.getX();
+            dragY = event.getY();
+            repaint.start();
+        });
+        setOnMouseClicked(event -> {
+            if (event.getClickCount() == 2) {
+                zoom = 1;
+                panX = panY = 0;
+                repaint.start();
+            }
+        });
 
-        draw();
+        redraw();
     }
 
-    public int runDijkstra(String startName, String endName, List<String> required) {
-        data.clearHighlights();
+    // tout ce qui dépend du plan, préparable hors du thread JavaFX
+    private final class Layout {
+        final GraphData data;
+        final RoutingEngine engine;
+        final ViewIndex index;
+        final Image[] icons;
+        final String[] labels;
+
+        Layout(GraphData data) {
+            this.data = data;
+            engine = new RoutingEngine(data);
+            index = new ViewIndex(data);
+            icons = new Image[data.nodes.size()];
+            labels = new String[data.nodes.size()];
+            for (int i = 0; i < icons.length; i++) {
+                Node node = data.nodes.get(i);
+                String name = node.name.toLowerCase();
+                icons[i] = icon(name);
+                if (icons[i] != null && (name.startsWith("entrée") || name.startsWith("caisse"))) {
+                    labels[i] = node.name.replace("Entrée ", "A").replace("Caisse ", "C");
+                }
+            }
+        }
+    }
 
-        Node start = data.nodes.stream().filter(n -> n.name.equalsIgnoreCase(startName)).findFirst().orElse(null);
-        Node end = data.nodes.stream().filter(n -> n.name.equalsIgnoreCase(endName)).findFirst().orElse(null);
+    private void apply(Layout layout) {
+        data = layout.data;
+        engine = layout.engine;
+        index = layout.index;
+        icons = layout.icons;
+        labels = layout.labels;
+    }
 
-        if (start == null || end == null) return -1;
+    /** Plan affiché (thread JavaFX). */
+    public GraphData data() {
+        return data;
+    }
 
-        // Trouver les nœuds correspondants aux produits (par mot-clé partiel)
-        List<Node> mustVisit = new ArrayList<>(data.nodes.stream()
-                .filter(n -> required.stream().anyMatch(req -> n.name.toLowerCase().contains(req.toLowerCase())))
-                .toList());
+    /**
+     * Remplace le plan affiché, par exemple depuis un {@link LayoutManager}. L'index d'affichage
+     * est construit sur le thread appelant, puis la bascule a lieu sur le thread JavaFX : la
+     * requête en cours se termine sur l'ancien plan mais n'est plus affichée ; zoom et
+     * déplacement sont conservés.
+     */
+    public void setGraph(GraphData data) {
+        Layout layout = new Layout(data);
+        Platform.runLater(() -> {
+            requestCount++;
+            apply(layout);
+            highlighted = new BitSet();
+            redraw();
+        });
+    }
 
+    /**
+     * Calcul hors du thread JavaFX : le meilleur itinéraire connu est affiché au fil de la
+     * recherche (au plus une fois par impulsion), puis le résultat final. {@code onRoute}
+     * reçoit chaque itinéraire affiché, null s'il n'y en a pas. Plusieurs entrées ou sorties :
+     * mode « n'importe laquelle ». Une nouvelle requête annule la précédente.
+     */
+    public CompletableFuture<Route> runDijkstraAsync(List<String> startNames, List<String> endNames,
+                                                     List<String> required, Consumer<Route> onRoute) {
+        int request = ++requestCount;
+        highlighted = new BitSet();
+        draw();
 
-        List<Node> path = data.getPath(start, end, mustVisit);
-        if (path == null || path.isEmpty()) return -1;
+        CompletableFuture<Route> future = router.route(startNames, endNames, required,
+                route -> publish(new Progress(request, route, onRoute)));
+        future.whenComplete((route, error) -> Platform.runLater(() -> {
+            if (request != requestCount || future.isCancelled()) return;
+            if (route == null) {
+                onRoute.accept(null);
+            } else {
+                show(route, onRoute);
+            }
+        }));
+        return future;
+    }
 
-        data.highlightPath(path);
-        int poids = data.calculateWeight(path);
-        draw();
-        return poids;
+    private void publish(Progress progress) {
+        if (pendingProgress.getAndSet(progress) == null) {
+            Platform.runLater(() -> {
+                Progress latest = pendingProgress.getAndSet(null);
+                if (latest != null && latest.request() == requestCount) show(latest.route(), latest.onRoute());
+            });
+        }
     }
 
+    private void show(Route route, Consumer<Route> onRoute) {
+        highlighted = route.trace.edgeSet();
+        draw();
+        onRoute.accept(route);
+    }
 
     public void reset() {
-        data.clearHighlights();
+        requestCount++;
+        router.cancel();
+        highlighted = new BitSet();
         draw();
     }
 
-    private void draw() {
+    // le point (x, y) de l'écran reste sous le curseur
+    private void zoomAt(double x, double y, double factor) {
+        double next = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * factor));
+        double f = next / zoom;
+        panX = x - (x - panX) * f;
+        panY = y - (y - panY) * f;
+        zoom = next;
+        repaint.start();
+    }
+
+    // taille, vue ou poids changés : fond (arêtes, étiquettes, icônes) et itinéraire redessinés
+    private void redraw() {
         double width = getWidth() > 0 ? getWidth() : 1000;
         double height = getHeight() > 0 ? getHeight() : 700;
+        for (Canvas layer : new Canvas[]{edgeLayer, routeLayer, labelLayer}) {
+            layer.setWidth(width);
+            layer.setHeight(height);
+        }
+        // plan ajusté à la fenêtre (comme GraphData.normalize), puis zoom et déplacement
+        double kx = Math.max(1, width - 2 * PADDING) / span(data.maxLon - data.minLon);
+        double ky = Math.max(1, height - 2 * PADDING) / span(data.maxLat - data.minLat);
+        ax = kx * zoom;
+        bx = (PADDING - data.minLon * kx) * zoom + panX;
+        ay = -ky * zoom;
+        by = (PADDING + data.maxLat * ky) * zoom + panY;
+        drawnWidth = width;
+        drawnHeight = height;
+        drawnGraph = data.compiled();
+
+        // niveau de détail : le plus fin dont les cellules restent lisibles à l'écran
+        double pixels = Math.min(Math.abs(ax), Math.abs(ay));
+        level = 0;
+        while (level + 1 < index.levels() && index.level(level).cellSize * pixels < AGGREGATE_PIXELS) level++;
+        detail = level == 0 && index.level(0).cellSize * pixels >= DETAIL_PIXELS;
+
+        drawEdges();
+        drawLabels();
+        drawRoute();
+    }
 
-        canvas.setWidth(width);
-        canvas.setHeight(height);
+    private static double span(double span) {
+        return span > 0 ? span : 1;
+    }
 
-        data.normalize(width, height);
-        gc.clearRect(0, 0, width, height);
-        gc.setFont(Font.font("Segoe UI", FontWeight.SEMI_BOLD, 13));
+    // itinéraire seul ; le fond n'est refait que si les poids affichés ont changé
+    private void draw() {
+        if (drawnGraph != data.compiled()) {
+            redraw();
+        } else {
+            drawRoute();
+        }
+    }
 
-        for (Edge edge : data.edges) {
-            gc.setStroke(edge.highlighted ? Color.web("#FF7043") : Color.web("#4e5c68"));
-            gc.setLineWidth(edge.highlighted ? 4 : 2);
-            gc.strokeLine(edge.from.x, edge.from.y, edge.to.x, edge.to.y);
+    // coordonnées du plan au bord de l'écran, élargies de margin pixels
+    private double minLon(double margin) {
+        return (-margin - bx) / ax;
+    }
 
-            double midX = (edge.from.x + edge.to.x) / 2;
-            double midY = (edge.from.y + edge.to.y) / 2 - 6;
+    private double maxLon(double margin) {
+        return (drawnWidth + margin - bx) / ax;
+    }
 
-            gc.setFill(Color.web("#2e2e2e"));  // Ã©tiquette sombre
-            gc.fillRoundRect(midX - 12, midY - 10, 24, 16, 6, 6);
-            gc.setFill(Color.web("#e0e0e0"));  // texte clair
-            gc.fillText(String.valueOf(edge.weight), midX - 4, midY + 2);
-        }
+    private double minLat(double margin) {
+        return (drawnHeight + margin - by) / ay;
+    }
 
-        for (Node node : data.nodes) {
-            Image img;
+    private double maxLat(double margin) {
+        return (-margin - by) / ay;
+    }
 
-            String name = node.name.toLowerCase();
+    private void drawEdges() {
+        GraphicsContext gc = edgeLayer.getGraphicsContext2D();
+        gc.clearRect(0, 0, drawnWidth, drawnHeight);
+        ViewIndex.Level lv = index.level(level);
+        gc.setStroke(EDGE_COLOR);
+        gc.setLineWidth(level == 0 ? 2 : 1);
+        gc.beginPath();
+        lv.segments(minLon(0), minLat(0), maxLon(0), maxLat(0), s -> line(gc, lv, s));
+        gc.stroke();
+        if (level == 0) return;
+
+        // agrégats : disque d'autant plus grand qu'il représente de nœuds
+        double cell = lv.cellSize * Math.min(Math.abs(ax), Math.abs(ay));
+        gc.setFill(EDGE_COLOR);
+        lv.points(minLon(cell), minLat(cell), maxLon(cell), maxLat(cell), p -> {
+            double r = Math.min(cell / 2, 1.5 + Math.sqrt(lv.count[p]));
+            gc.fillOval(ax * lv.x[p] + bx - r, ay * lv.y[p] + by - r, 2 * r, 2 * r);
+        });
+    }
 
-            if (name.startsWith("entrée")) img = entreeImage;
-            else if (name.startsWith("caisse")) img = caisseImage;
-            else if (name.contains("fruit")) img = fruitImage;
-            else if (name.contains("légume") || name.contains("legume")) img = legumeImage;
-            else if (name.contains("pain")) img = painImage;
-            else if (name.contains("petitdéj") || name.contains("petitdej")) img = petitdejImage;
-            else if (name.contains("poisson")) img = poissonImage;
-            else if (name.contains("viande")) img = viandeImage;
-            else continue;
+    private void line(GraphicsContext gc, ViewIndex.Level lv, int s) {
+        int a = lv.segA[s], b = lv.segB[s];
+        gc.moveTo(ax * lv.x[a] + bx, ay * lv.y[a] + by);
+        gc.lineTo(ax * lv.x[b] + bx, ay * lv.y[b] + by);
+    }
 
-            double r = 30; // rayon du cercle (image centrée dans un 60x60)
-            double cx = node.x;
-            double cy = node.y;
+    // tracé exact à tout niveau de zoom, limité aux arêtes qui recoupent l'écran
+    private void drawRoute() {
+        GraphicsContext gc = routeLayer.getGraphicsContext2D();
+        gc.clearRect(0, 0, drawnWidth, drawnHeight);
+        if (highlighted.isEmpty()) return;
+        ViewIndex.Level lv = index.level(0);
+        gc.setStroke(ROUTE_COLOR);
+        gc.setLineWidth(4);
+        gc.beginPath();
+        for (int e = highlighted.nextSetBit(0); e >= 0; e = highlighted.nextSetBit(e + 1)) {
+            int a = lv.segA[e], b = lv.segB[e];
+            if (a < 0) continue;
+            double x1 = ax * lv.x[a] + bx, y1 = ay * lv.y[a] + by;
+            double x2 = ax * lv.x[b] + bx, y2 = ay * lv.y[b] + by;
+            if (Math.max(x1, x2) < 0 || Math.min(x1, x2) > drawnWidth
+                    || Math.max(y1, y2) < 0 || Math.min(y1, y2) > drawnHeight) continue;
+            gc.moveTo(x1, y1);
+            gc.lineTo(x2, y2);
+        }
+        gc.stroke();
+    }
 
-            // cercle blanc derrière
+    private void drawLabels() {
+        GraphicsContext gc = labelLayer.getGraphicsContext2D();
+        gc.clearRect(0, 0, drawnWidth, drawnHeight);
+        if (!detail) return;
+        ViewIndex.Level lv = index.level(0);
+
+        // poids des arêtes : fonds puis textes, sans changer d'état entre deux étiquettes
+        gc.setFill(LABEL_BACKGROUND); // étiquette sombre
+        lv.segments(minLon(20), minLat(20), maxLon(20), maxLat(20), e -> {
+            double midX = ax * (lv.x[lv.segA[e]] + lv.x[lv.segB[e]]) / 2 + bx;
+            double midY = ay * (lv.y[lv.segA[e]] + lv.y[lv.segB[e]]) / 2 + by - 6;
+            gc.fillRoundRect(midX - 12, midY - 10, 24, 16, 6, 6);
+        });
+        gc.setFill(LABEL_TEXT); // texte clair
+        gc.setFont(WEIGHT_FONT);
+        lv.segments(minLon(20), minLat(20), maxLon(20), maxLat(20), e -> {
+            double midX = ax * (lv.x[lv.segA[e]] + lv.x[lv.segB[e]]) / 2 + bx;
+            double midY = ay * (lv.y[lv.segA[e]] + lv.y[lv.segB[e]]) / 2 + by - 6;
+            gc.fillText(String.valueOf(data.weight(e)), midX - 4, midY + 2);
+        });
+
+        double r = 30; // rayon du cercle (image centrée dans un 60x60)
+        gc.setLineWidth(2);
+        gc.setFont(NODE_FONT);
+        lv.points(minLon(r), minLat(r), maxLon(r), maxLat(r), i -> {
+            if (icons[i] == null) return;
+            double cx = ax * lv.x[i] + bx;
+            double cy = ay * lv.y[i] + by;
+
+            // cercle blanc derrière, bord, puis image 50x50 au centre
             gc.setFill(Color.WHITE);
             gc.fillOval(cx - r, cy - r, r * 2, r * 2);
-
-            // bord
             gc.setStroke(Color.LIGHTGRAY);
-            gc.setLineWidth(2);
             gc.strokeOval(cx - r, cy - r, r * 2, r * 2);
-
-            // dessiner l'image au centre
-            gc.drawImage(img, cx - 25, cy - 25, 50, 50); // image 50x50 au centre
+            gc.drawImage(icons[i], cx - 25, cy - 25, 50, 50);
 
             // texte seulement pour entrées/sorties
-            if (name.startsWith("entrée") || name.startsWith("caisse")) {
-                String label = node.name.replace("Entrée ", "A").replace("Caisse ", "C");
+            if (labels[i] != null) {
                 gc.setFill(Color.BLACK);
-                gc.setFont(Font.font("Segoe UI", FontWeight.BOLD, 14));
-                gc.fillText(label, cx - 6, cy + 5);
+                gc.fillText(labels[i], cx - 6, cy + 5);
             }
-        }
-
+        });
+    }
 
+    // icône d'après le nom du nœud, null s'il n'en a pas
+    private Image icon(String name) {
+        if (name.startsWith("entrée")) return entreeImage;
+        if (name.startsWith("caisse")) return caisseImage;
+        if (name.contains("fruit")) return fruitImage;
+        if (name.contains("légume") || name.contains("legume")) return legumeImage;
+        if (name.contains("pain")) return painImage;
+        if (name.contains("petitdéj") || name.contains("petitdej")) return petitdejImage;
+        if (name.contains("poisson")) return poissonImage;
+        if (name.contains("viande")) return viandeImage;
+        return null;
     }
 }
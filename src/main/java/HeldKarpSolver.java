@@ -0,0 +1,143 @@
+import java.util.List;
+
+/**
+ * Ordre exact des nœuds obligatoires par programmation dynamique sur sous-ensembles
+ * (Held-Karp), en O(2^k·k²) sur une {@link LegMatrix} calculée une seule fois. Avec des
+ * groupes de candidats (TSP généralisé), les sous-ensembles portent sur les groupes et
+ * l'état retient le candidat visité en dernier : O(2^g·m²) pour g groupes et m candidats.
+ */
+public class HeldKarpSolver implements TourSolver {
+    public static final int MAX_REQUIRED = 18;
+    // taille maximale de la table (sous-ensembles de groupes × candidats)
+    private static final long MAX_STATES = 1L << 23;
+
+    @Override
+    public Tour solve(GraphData graph, Node start, Node end, List<Node> mustVisit) {
+        return solveGroups(graph, start, end, TourSolver.singletons(mustVisit), tour -> { });
+    }
+
+    @Override
+    public Tour solveGroups(GraphData graph, Node start, Node end, List<List<Node>> groups, TourListener listener) {
+        check(groups);
+        LegMatrix legs = new LegMatrix(graph, List.of(start), List.of(end), groups);
+        long[] evaluated = new long[1];
+        int[] order = solveByExit(legs, true, evaluated)[0];
+        if (order == null) return null;
+        Tour tour = new Tour(legs.path(order), legs.tourCost(order), evaluated[0]);
+        listener.improved(tour);
+        return tour;
+    }
+
+    /** Vrai si la table de l'instance tient en mémoire. */
+    public static boolean fits(List<List<Node>> groups) {
+        long candidates = 0;
+        for (List<Node> group : groups) candidates += group.size();
+        return groups.size() <= MAX_REQUIRED && (candidates << groups.size()) <= MAX_STATES
+                && candidates <= Short.MAX_VALUE;
+    }
+
+    /** Refuse les instances dont la table ne tiendrait pas en mémoire (voir {@link #fits}). */
+    public static void check(List<List<Node>> groups) {
+        if (!fits(groups)) {
+            long candidates = 0;
+            for (List<Node> group : groups) candidates += group.size();
+            throw new IllegalArgumentException("Trop de nœuds obligatoires pour Held-Karp : "
+                    + groups.size() + " groupes, " + candidates + " candidats");
+        }
+    }
+
+    /** Ordre optimal (un arrêt candidat par groupe), ou null si aucun parcours n'existe. */
+    public int[] solve(LegMatrix legs) {
+        return solveByExit(legs, true, new long[1])[0];
+    }
+
+    /**
+     * Ordre optimal pour chacune des sorties de la matrice (null si elle est inaccessible) :
+     * la table est remplie une seule fois, seule la dernière étape dépend de la sortie.
+     */
+    public int[][] solveByExit(LegMatrix legs) {
+        return solveByExit(legs, false, new long[1]);
+    }
+
+    // nearest : une seule réponse, vers la sortie la plus proche de chaque dernier arrêt ;
+    // evaluated[0] reçoit le nombre d'ordres partiels prolongés d'un arrêt
+    private int[][] solveByExit(LegMatrix legs, boolean nearest, long[] evaluated) {
+        int k = legs.groups();
+        int m = legs.required();
+        int end = legs.end();
+        int[][] orders = new int[nearest ? 1 : legs.exits()][];
+        if (k == 0) {
+            for (int e = 0; e < orders.length; e++) {
+                int leg = nearest ? legs.cost(0, end) : legs.exitCost(0, e);
+                orders[e] = leg == LegMatrix.INFINITY ? null : new int[0];
+            }
+            return orders;
+        }
+
+        int full = (1 << k) - 1;
+        int[] bit = new int[m];
+        for (int c = 0; c < m; c++) bit[c] = 1 << legs.group(c + 1);
+        // best[mask * m + c] : coût minimal depuis le départ en visitant les groupes de mask et en finissant sur c
+        int[] best = new int[(full + 1) * m];
+        short[] parent = new short[(full + 1) * m];
+        java.util.Arrays.fill(best, LegMatrix.INFINITY);
+        for (int c = 0; c < m; c++) {
+            best[bit[c] * m + c] = legs.cost(0, c + 1);
+            parent[bit[c] * m + c] = -1;
+        }
+
+        long extensions = 0;
+        for (int mask = 1; mask <= full; mask++) {
+            if ((mask & 0xFFF) == 0) TourSolver.checkCancelled();
+            for (int c = 0; c < m; c++) {
+                int current = best[mask * m + c];
+                if ((mask & bit[c]) == 0 || current == LegMatrix.INFINITY) continue;
+                int rest = full & ~mask;
+                while (rest != 0) {
+                    int g = Integer.numberOfTrailingZeros(rest);
+                    rest &= rest - 1;
+                    int next = mask | (1 << g);
+                    extensions += legs.members(g).length;
+                    for (int stop : legs.members(g)) {
+                        int leg = legs.cost(c + 1, stop);
+                        if (leg == LegMatrix.INFINITY) continue;
+                        int slot = next * m + stop - 1;
+                        if (current + leg < best[slot]) {
+                            best[slot] = current + leg;
+                            parent[slot] = (short) c;
+                        }
+                    }
+                }
+            }
+        }
+        evaluated[0] = extensions;
+
+        for (int e = 0; e < orders.length; e++) {
+            int last = -1;
+            long bestCost = LegMatrix.INFINITY;
+            for (int c = 0; c < m; c++) {
+                int leg = nearest ? legs.cost(c + 1, end) : legs.exitCost(c + 1, e);
+                if (best[full * m + c] == LegMatrix.INFINITY || leg == LegMatrix.INFINITY) continue;
+                long total = (long) best[full * m + c] + leg;
+                if (total < bestCost) {
+                    bestCost = total;
+                    last = c;
+                }
+            }
+            if (last >= 0) orders[e] = order(parent, bit, k, m, full, last);
+        }
+        return orders;
+    }
+
+    private static int[] order(short[] parent, int[] bit, int k, int m, int full, int last) {
+        int[] order = new int[k];
+        int mask = full;
+        for (int i = k - 1; i >= 0; i--) {
+            order[i] = last + 1;
+            int p = parent[mask * m + last];
+            mask &= ~bit[last];
+            last = p;
+        }
+        return order;
+    }
+}
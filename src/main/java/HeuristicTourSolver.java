@@ -0,0 +1,251 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Optimiseur « anytime » pour les longues listes : construction au plus proche
+ * voisin puis améliorations 2-opt / Or-opt, relancées par perturbation tant que
+ * le budget de temps n'est pas épuisé. Retourne le meilleur parcours trouvé.
+ * Avec des groupes de candidats, un mouvement de plus change le représentant visité.
+ */
+public class HeuristicTourSolver implements TourSolver {
+    private final long budgetNanos;
+    private final long seed;
+
+    public HeuristicTourSolver(long budgetMillis) {
+        this(budgetMillis, 42);
+    }
+
+    public HeuristicTourSolver(long budgetMillis, long seed) {
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        this.seed = seed;
+    }
+
+    @Override
+    public Tour solve(GraphData graph, Node start, Node end, List<Node> mustVisit) {
+        return solve(graph, start, end, mustVisit, tour -> { });
+    }
+
+    @Override
+    public Tour solve(GraphData graph, Node start, Node end, List<Node> mustVisit, TourListener listener) {
+        return solveGroups(graph, start, end, TourSolver.singletons(mustVisit), listener);
+    }
+
+    @Override
+    public Tour solveGroups(GraphData graph, Node start, Node end, List<List<Node>> groups, TourListener listener) {
+        long deadline = System.nanoTime() + budgetNanos;
+        return search(new LegMatrix(graph, List.of(start), List.of(end), groups), deadline, listener);
+    }
+
+    /**
+     * Meilleur parcours trouvé vers chacune des sorties de la matrice (null si elle est
+     * inaccessible), le budget étant réparti entre elles. {@code listener} reçoit chaque
+     * amélioration, sortie après sortie.
+     */
+    public List<Tour> solveByExit(LegMatrix legs, TourListener listener) {
+        long started = System.nanoTime();
+        List<Tour> tours = new ArrayList<>(legs.exits());
+        for (int e = 0; e < legs.exits(); e++) {
+            long deadline = started + budgetNanos * (e + 1) / legs.exits();
+            tours.add(search(legs.toExit(e), deadline, listener));
+        }
+        return tours;
+    }
+
+    private Tour search(LegMatrix legs, long deadline, TourListener listener) {
+        if (legs.cost(0, legs.end()) == LegMatrix.INFINITY) return null;
+        for (int g = 0; g < legs.groups(); g++) {
+            boolean reachable = false;
+            for (int stop : legs.members(g)) reachable |= legs.cost(0, stop) != LegMatrix.INFINITY;
+            if (!reachable) return null;
+        }
+
+        int k = legs.groups();
+        int[] best = nearestNeighbour(legs);
+        long iterations = 1;
+        improve(legs, best, deadline);
+        int bestCost = legs.tourCost(best);
+        listener.improved(new Tour(legs.path(best), bestCost, iterations));
+
+        boolean choices = legs.groups() != legs.required();
+        if (k >= 3 || (choices && k > 0)) {
+            Random random = new Random(seed);
+            int[] current = best.clone();
+            while (System.nanoTime() < deadline) {
+                TourSolver.checkCancelled();
+                if (k >= 3) perturb(current, random);
+                if (choices) swapCandidate(legs, current, random);
+                improve(legs, current, deadline);
+                iterations++;
+                int cost = legs.tourCost(current);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = current.clone();
+                    listener.improved(new Tour(legs.path(best), bestCost, iterations));
+                } else {
+                    System.arraycopy(best, 0, current, 0, k);
+                }
+            }
+        }
+        return new Tour(legs.path(best), bestCost, iterations);
+    }
+
+    private int[] nearestNeighbour(LegMatrix legs) {
+        int k = legs.groups();
+        int[] order = new int[k];
+        boolean[] used = new boolean[k];
+        int current = 0;
+        for (int i = 0; i < k; i++) {
+            int next = -1;
+            for (int j = 1; j <= legs.required(); j++) {
+                if (!used[legs.group(j)] && (next < 0 || legs.cost(current, j) < legs.cost(current, next))) next = j;
+            }
+            used[legs.group(next)] = true;
+            order[i] = next;
+            current = next;
+        }
+        return order;
+    }
+
+    /** Plus proche voisin puis améliorations jusqu'à un optimum local, sans perturbation ni échéance. */
+    int[] localOptimum(LegMatrix legs) {
+        int[] order = nearestNeighbour(legs);
+        improve(legs, order, Long.MAX_VALUE);
+        return order;
+    }
+
+    /** Applique 2-opt et Or-opt jusqu'à un optimum local (ou l'échéance). */
+    private void improve(LegMatrix legs, int[] order, long deadline) {
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = twoOpt(legs, order) | orOpt(legs, order) | reselect(legs, order);
+        }
+    }
+
+    // stop(order, i) : arrêt en position i du parcours complet (0 = départ, k+1 = arrivée)
+    private static int stop(LegMatrix legs, int[] order, int i) {
+        return i == 0 ? 0 : i > order.length ? legs.end() : order[i - 1];
+    }
+
+    private boolean twoOpt(LegMatrix legs, int[] order) {
+        int k = order.length;
+        boolean improved = false;
+        for (int i = 1; i < k; i++) {
+            for (int j = i + 1; j <= k; j++) {
+                int a = stop(legs, order, i - 1), b = stop(legs, order, i);
+                int c = stop(legs, order, j), d = stop(legs, order, j + 1);
+                long delta = (long) legs.cost(a, c) + legs.cost(b, d) - legs.cost(a, b) - legs.cost(c, d);
+                if (delta < 0) {
+                    reverse(order, i - 1, j - 1);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    // remplace chaque arrêt par le candidat de son groupe le moins coûteux entre ses voisins
+    private boolean reselect(LegMatrix legs, int[] order) {
+        if (legs.groups() == legs.required()) return false;
+        boolean improved = false;
+        for (int i = 1; i <= order.length; i++) {
+            int a = stop(legs, order, i - 1), b = stop(legs, order, i), c = stop(legs, order, i + 1);
+            long current = (long) legs.cost(a, b) + legs.cost(b, c);
+            for (int candidate : legs.members(legs.group(b))) {
+                long cost = (long) legs.cost(a, candidate) + legs.cost(candidate, c);
+                if (cost < current) {
+                    order[i - 1] = candidate;
+                    current = cost;
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    private boolean orOpt(LegMatrix legs, int[] order) {
+        int k = order.length;
+        boolean improved = false;
+        for (int length = 1; length <= 3 && length < k; length++) {
+            for (int i = 1; i + length - 1 <= k; i++) {
+                int j = i + length - 1;
+                int a = stop(legs, order, i - 1), b = stop(legs, order, i);
+                int c = stop(legs, order, j), d = stop(legs, order, j + 1);
+                long removed = (long) legs.cost(a, b) + legs.cost(c, d) - legs.cost(a, d);
+                // réinsertion entre les positions p et p+1, hors du segment
+                for (int p = 0; p <= k; p++) {
+                    if (p >= i - 1 && p <= j) continue;
+                    int x = stop(legs, order, p), y = stop(legs, order, p + 1);
+                    long base = legs.cost(x, y);
+                    long forward = (long) legs.cost(x, b) + legs.cost(c, y) - base;
+                    long backward = (long) legs.cost(x, c) + legs.cost(b, y) - base;
+                    if (Math.min(forward, backward) < removed) {
+                        move(order, i - 1, length, p, backward < forward);
+                        improved = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return improved;
+    }
+
+    // déplace order[from..from+length) après la position p du parcours complet
+    private static void move(int[] order, int from, int length, int p, boolean reversed) {
+        int[] segment = new int[length];
+        System.arraycopy(order, from, segment, 0, length);
+        if (reversed) reverse(segment, 0, length - 1);
+        if (p < from) {
+            System.arraycopy(order, p, order, p + length, from - p);
+            System.arraycopy(segment, 0, order, p, length);
+        } else {
+            int shift = p - (from + length);
+            System.arraycopy(order, from + length, order, from, shift);
+            System.arraycopy(segment, 0, order, from + shift, length);
+        }
+    }
+
+    private static void reverse(int[] order, int i, int j) {
+        for (; i < j; i++, j--) {
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+    }
+
+    // représentant tiré au hasard, parmi ceux accessibles depuis le départ, pour un groupe tiré au hasard
+    private static void swapCandidate(LegMatrix legs, int[] order, Random random) {
+        int i = random.nextInt(order.length);
+        int[] members = legs.members(legs.group(order[i]));
+        int reachable = 0;
+        for (int stop : members) if (legs.cost(0, stop) != LegMatrix.INFINITY) reachable++;
+        // au moins un : solveGroups a écarté les groupes inaccessibles
+        int pick = random.nextInt(reachable);
+        for (int stop : members) {
+            if (legs.cost(0, stop) != LegMatrix.INFINITY && pick-- == 0) {
+                order[i] = stop;
+                return;
+            }
+        }
+    }
+
+    // double-bridge si le parcours est assez long, sinon inversion d'un segment aléatoire
+    private static void perturb(int[] order, Random random) {
+        int k = order.length;
+        if (k >= 8) {
+            int a = 1 + random.nextInt(k / 4);
+            int b = a + 1 + random.nextInt(k / 4);
+            int c = b + 1 + random.nextInt(k / 4);
+            int[] copy = order.clone();
+            int pos = a;
+            System.arraycopy(copy, c, order, pos, k - c);
+            pos += k - c;
+            System.arraycopy(copy, b, order, pos, c - b);
+            pos += c - b;
+            System.arraycopy(copy, a, order, pos, b - a);
+        } else {
+            int i = random.nextInt(k - 1);
+            reverse(order, i, i + 1 + random.nextInt(k - 1 - i));
+        }
+    }
+}
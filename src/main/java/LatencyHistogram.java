@@ -0,0 +1,63 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Histogramme de durées (nanosecondes) à seaux log-linéaires : 8 seaux par puissance de
+ * deux, soit une précision de 12,5 % sur les percentiles, en mémoire fixe et sans verrou.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB = 1 << SUB_BITS;
+    private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long v = Math.max(0, nanos);
+        buckets.incrementAndGet(bucket(v));
+        max.accumulate(v);
+    }
+
+    private static int bucket(long v) {
+        if (v < SUB) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        return (exp - SUB_BITS + 1) * SUB + (int) ((v >>> (exp - SUB_BITS)) & (SUB - 1));
+    }
+
+    // plus grande valeur rangée dans le seau b
+    private static long upper(int b) {
+        if (b < SUB) return b;
+        int exp = b / SUB + SUB_BITS - 1;
+        long base = (SUB + (b % SUB)) << (exp - SUB_BITS);
+        return base + (1L << (exp - SUB_BITS)) - 1;
+    }
+
+    public long count() {
+        long count = 0;
+        for (int b = 0; b < buckets.length(); b++) count += buckets.get(b);
+        return count;
+    }
+
+    /** Percentile p (0..1) en nanosecondes, borne haute de son seau ; 0 sans mesure. */
+    public long percentile(double p) {
+        long[] counts = new long[buckets.length()];
+        long total = 0;
+        for (int b = 0; b < counts.length; b++) total += counts[b] = buckets.get(b);
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (int b = 0; b < counts.length; b++) {
+            seen += counts[b];
+            if (seen >= rank) return Math.min(upper(b), max());
+        }
+        return max();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public void reset() {
+        for (int b = 0; b < buckets.length(); b++) buckets.set(b, 0);
+        max.reset();
+    }
+}
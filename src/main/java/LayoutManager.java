@@ -0,0 +1,193 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Plans du magasin rechargés à chaud : un répertoire de fichiers {@code .json} / {@code .bin}
+ * surveillé par un {@link WatchService}. Quand le plan actif change (ou qu'un autre est
+ * choisi par {@link #select}), il est relu et compilé sur un thread de chargement puis publié
+ * d'un coup par échange de référence : {@link #current()} ne bloque jamais et une requête
+ * qui a pris un instantané le garde jusqu'au bout. Un fichier illisible (en cours d'écriture,
+ * par exemple) est ignoré : le plan précédent reste en service, et surveillé, jusqu'à la
+ * prochaine modification.
+ */
+public class LayoutManager implements AutoCloseable {
+    // les éditeurs écrivent souvent en plusieurs fois : un seul rechargement après le dernier événement
+    private static final long SETTLE_MILLIS = 200;
+
+    /** Plan publié : ne change plus une fois construit (hors {@link GraphData#updateWeights}). */
+    public static final class Snapshot {
+        public final Path file;
+        public final GraphData data;
+        public final RoutingEngine engine;
+        public final long version;
+
+        Snapshot(Path file, GraphData data, long version) {
+            this.file = file;
+            this.data = data;
+            this.engine = new RoutingEngine(data);
+            this.version = version;
+        }
+    }
+
+    private final Path directory;
+    private final double maxSnapDistance;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final List<Consumer<Snapshot>> listeners = new CopyOnWriteArrayList<>();
+    private final WatchService watcher;
+    private final Thread watchThread;
+    private final ScheduledExecutorService loader = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "chargement-plan");
+        t.setDaemon(true);
+        return t;
+    });
+    // fichier du plan publié : seul un chargement réussi le change
+    private volatile Path active;
+    // dernier plan demandé par select ; une demande plus ancienne encore en file est abandonnée
+    private volatile Path requested;
+    private ScheduledFuture<?> pending;
+    // uniquement sur le thread de chargement
+    private long versions;
+
+    /** Charge {@code initial} (nom d'un fichier du répertoire) avant de rendre la main, puis surveille le répertoire. */
+    public LayoutManager(Path directory, String initial) throws IOException {
+        this(directory, initial, Double.POSITIVE_INFINITY);
+    }
+
+    /** Comme ci-dessus, chaque plan étant lu par {@link GraphData#load(Path, double)}. */
+    public LayoutManager(Path directory, String initial, double maxSnapDistance) throws IOException {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.maxSnapDistance = maxSnapDistance;
+        active = this.directory.resolve(initial);
+        current.set(new Snapshot(active, GraphData.load(active, maxSnapDistance), ++versions));
+        watcher = this.directory.getFileSystem().newWatchService();
+        this.directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watchThread = new Thread(this::watch, "surveillance-plans");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /** Dernier plan publié. */
+    public Snapshot current() {
+        return current.get();
+    }
+
+    /** Moteur du dernier plan publié, à prendre une fois par requête. */
+    public RoutingEngine engine() {
+        return current.get().engine;
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /** Noms des plans disponibles dans le répertoire, triés. */
+    public List<String> layouts() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(".json") || name.endsWith(".bin"))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** {@code listener} reçoit chaque nouveau plan, sur le thread de chargement. */
+    public void addListener(Consumer<Snapshot> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Rend actif un autre plan du répertoire : chargé en arrière-plan, publié quand il est
+     * prêt. Le futur échoue si le fichier est illisible ; le plan courant reste alors en service.
+     * Il est annulé si un autre plan est demandé avant que celui-ci ait été chargé.
+     */
+    public CompletableFuture<Snapshot> select(String name) {
+        Path file = directory.resolve(name);
+        requested = file;
+        CompletableFuture<Snapshot> result = new CompletableFuture<>();
+        loader.execute(() -> {
+            if (!file.equals(requested)) {
+                result.cancel(false);
+                return;
+            }
+            try {
+                result.complete(load(file));
+            } catch (IOException | RuntimeException | InternalError e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    // OVERFLOW : événements perdus, on relit par prudence
+                    changed |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || directory.resolve((Path) event.context()).equals(active);
+                }
+                key.reset();
+                if (changed) scheduleReload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // fermeture
+        }
+    }
+
+    private synchronized void scheduleReload() {
+        if (pending != null) pending.cancel(false);
+        pending = loader.schedule(() -> {
+            Path file = active;
+            try {
+                load(file);
+            } catch (IOException | RuntimeException | InternalError e) {
+                System.err.println("Plan ignoré (" + file.getFileName() + ") : " + e.getMessage());
+            }
+        }, SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // thread de chargement : lecture et compilation, puis publication ; en cas d'échec rien ne change
+    private Snapshot load(Path file) throws IOException {
+        GraphData data = GraphData.load(file, maxSnapDistance);
+        GraphData previous = current.get().data;
+        data.solver = previous.solver;
+        data.strategy = previous.strategy;
+        Snapshot snapshot = new Snapshot(file, data, ++versions);
+        active = file;
+        current.set(snapshot);
+        for (Consumer<Snapshot> listener : listeners) listener.accept(snapshot);
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            // rien à libérer de plus
+        }
+        watchThread.interrupt();
+        loader.shutdownNow();
+    }
+}
@@ -0,0 +1,271 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Distances entre les arrêts d'un parcours : 0 = départ, 1..k = nœuds candidats,
+ * k+1 = arrivée. Les candidats sont répartis en groupes (un par produit) : un parcours
+ * en visite exactement un par groupe ; sans groupes explicites, chaque nœud est seul.
+ * Une seule recherche complète par arrêt (sauf l'arrivée, le graphe
+ * étant non orienté) ; les arbres sont gardés pour reconstruire les chemins.
+ * Avec plusieurs départs, l'arrêt 0 est une super-source (recherche multi-source) ;
+ * avec plusieurs arrivées, l'arrêt k+1 est un super-puits dont le coût depuis chaque
+ * arrêt est celui de la sortie la plus proche.
+ * Avec la stratégie {@link SearchStrategy#CONTRACTION_HIERARCHY}, les distances viennent
+ * d'un calcul plusieurs-vers-plusieurs sur la hiérarchie et seuls les tronçons retenus
+ * sont reconstruits.
+ */
+public class LegMatrix {
+    public static final int INFINITY = DijkstraSearch.INFINITY;
+
+    // stops[0] et stops[k+1] valent null pour une super-source / un super-puits
+    public final Node[] stops;
+    // group[i] : groupe de l'arrêt candidat i (1..k) ; members[g] : ses arrêts candidats
+    private final int[] group;
+    private final int[][] members;
+    private final Node[] exits;
+    private final int[] ids;
+    private final int[] exitIds;
+    private final int[] startIds;
+    private final GraphData graph;
+    // hiérarchie de contraction, ou arbres complets par arrêt (l'un ou l'autre est null)
+    private final ContractionHierarchy hierarchy;
+    private final ShortestPathTree[] trees;
+    private final int[][] cost;
+    // exitCost[i][e] : coût de l'arrêt i (0..k) à la sortie e ; exit[i] : sortie la plus proche
+    private final int[][] exitCost;
+    private final int[] exit;
+
+    public LegMatrix(GraphData graph, Node start, Node end, List<Node> mustVisit) {
+        this(graph, List.of(start), List.of(end), TourSolver.singletons(mustVisit));
+    }
+
+    public LegMatrix(GraphData graph, List<Node> starts, List<Node> ends, List<List<Node>> groups) {
+        this.graph = graph;
+        CompiledGraph compiled = graph.compiled();
+        int k = 0;
+        for (List<Node> candidates : groups) k += candidates.size();
+        stops = new Node[k + 2];
+        group = new int[k + 2];
+        members = new int[groups.size()][];
+        stops[0] = starts.size() == 1 ? starts.get(0) : null;
+        int next = 1;
+        for (int g = 0; g < groups.size(); g++) {
+            members[g] = new int[groups.get(g).size()];
+            for (int m = 0; m < members[g].length; m++) {
+                stops[next] = groups.get(g).get(m);
+                group[next] = g;
+                members[g][m] = next++;
+            }
+        }
+        stops[k + 1] = ends.size() == 1 ? ends.get(0) : null;
+        exits = ends.toArray(new Node[0]);
+
+        ids = new int[k + 1];
+        for (int i = 1; i <= k; i++) ids[i] = id(compiled, stops[i]);
+        startIds = new int[starts.size()];
+        for (int s = 0; s < startIds.length; s++) startIds[s] = id(compiled, starts.get(s));
+        exitIds = new int[exits.length];
+        for (int e = 0; e < exits.length; e++) exitIds[e] = id(compiled, exits[e]);
+
+        // colonnes : candidats 1..k puis sorties
+        int[] targets = new int[k + exits.length];
+        System.arraycopy(ids, 1, targets, 0, k);
+        System.arraycopy(exitIds, 0, targets, k, exits.length);
+        int[][] distances;
+        ContractionHierarchy hierarchy = graph.strategy == SearchStrategy.CONTRACTION_HIERARCHY
+                ? graph.hierarchy() : null;
+        if (hierarchy != null && hierarchy.graph() == compiled) {
+            this.hierarchy = hierarchy;
+            trees = null;
+            int[][] sources = new int[k + 1][];
+            sources[0] = startIds;
+            for (int i = 1; i <= k; i++) sources[i] = new int[]{ids[i]};
+            TourSolver.checkCancelled();
+            distances = graph.hierarchyDistances(hierarchy, sources, targets);
+        } else {
+            this.hierarchy = null;
+            trees = new ShortestPathTree[k + 1];
+            TourSolver.checkCancelled();
+            trees[0] = graph.tree(starts);
+            for (int i = 1; i <= k; i++) {
+                TourSolver.checkCancelled();
+                trees[i] = graph.tree(stops[i]);
+            }
+            distances = new int[k + 1][targets.length];
+            for (int i = 0; i <= k; i++) {
+                for (int j = 0; j < targets.length; j++) distances[i][j] = trees[i].distance(targets[j]);
+            }
+        }
+
+        cost = new int[k + 2][k + 2];
+        exitCost = new int[k + 1][exits.length];
+        exit = new int[k + 1];
+        for (int i = 0; i <= k; i++) {
+            for (int j = 1; j <= k; j++) cost[i][j] = distances[i][j - 1];
+            int nearest = 0;
+            for (int e = 0; e < exits.length; e++) {
+                exitCost[i][e] = distances[i][k + e];
+                if (exitCost[i][e] < exitCost[i][nearest]) nearest = e;
+            }
+            exit[i] = nearest;
+            cost[i][k + 1] = exits.length == 0 ? INFINITY : exitCost[i][nearest];
+        }
+        for (int j = 0; j <= k; j++) {
+            cost[j][0] = cost[0][j];
+            cost[k + 1][j] = cost[j][k + 1];
+        }
+    }
+
+    // vue restreinte aux groupes donnés du parent, sans nouvelle recherche ; exitIndex >= 0 :
+    // l'arrivée devient cette sortie au lieu de la plus proche
+    private LegMatrix(LegMatrix parent, int[] groups, int exitIndex) {
+        graph = parent.graph;
+        hierarchy = parent.hierarchy;
+        exits = parent.exits;
+        exitIds = parent.exitIds;
+        startIds = parent.startIds;
+        int k = 0;
+        for (int g : groups) k += parent.members[g].length;
+        // from[i] : indice dans le parent de l'arrêt i
+        int[] from = new int[k + 2];
+        stops = new Node[k + 2];
+        group = new int[k + 2];
+        members = new int[groups.length][];
+        int next = 1;
+        for (int g = 0; g < groups.length; g++) {
+            int[] parentMembers = parent.members[groups[g]];
+            members[g] = new int[parentMembers.length];
+            for (int m = 0; m < parentMembers.length; m++) {
+                from[next] = parentMembers[m];
+                group[next] = g;
+                members[g][m] = next++;
+            }
+        }
+        from[k + 1] = parent.end();
+        for (int i = 0; i <= k + 1; i++) stops[i] = parent.stops[from[i]];
+        if (exitIndex >= 0) stops[k + 1] = exits[exitIndex];
+        ids = new int[k + 1];
+        for (int i = 1; i <= k; i++) ids[i] = parent.ids[from[i]];
+        trees = parent.trees == null ? null : new ShortestPathTree[k + 1];
+        cost = new int[k + 2][k + 2];
+        exitCost = new int[k + 1][];
+        exit = new int[k + 1];
+        for (int i = 0; i <= k + 1; i++) {
+            for (int j = 0; j <= k + 1; j++) cost[i][j] = parent.cost[from[i]][from[j]];
+            if (i > k) continue;
+            if (trees != null) trees[i] = parent.trees[from[i]];
+            exitCost[i] = parent.exitCost[from[i]];
+            exit[i] = exitIndex >= 0 ? exitIndex : parent.exit[from[i]];
+        }
+        if (exitIndex >= 0) {
+            for (int i = 0; i <= k; i++) cost[i][k + 1] = cost[k + 1][i] = exitCost[i][exitIndex];
+        }
+    }
+
+    /**
+     * Même matrice limitée aux groupes {@code groups} (indices, renumérotés dans cet ordre) :
+     * départ et sorties inchangés, distances et chemins repris du parent.
+     */
+    public LegMatrix subset(int[] groups) {
+        return new LegMatrix(this, groups, -1);
+    }
+
+    /**
+     * Même matrice avec la sortie e pour arrivée (au lieu de la plus proche de chaque arrêt) :
+     * arrêts numérotés comme ici, aucune nouvelle recherche.
+     */
+    public LegMatrix toExit(int e) {
+        int[] groups = new int[groups()];
+        for (int g = 0; g < groups.length; g++) groups[g] = g;
+        return new LegMatrix(this, groups, e);
+    }
+
+    private static int id(CompiledGraph compiled, Node node) {
+        int id = compiled.id(node);
+        if (id < 0) throw new IllegalArgumentException("Nœud inconnu : " + node.name);
+        return id;
+    }
+
+    /** Nombre de nœuds candidats (tous groupes confondus). */
+    public int required() {
+        return stops.length - 2;
+    }
+
+    public int groups() {
+        return members.length;
+    }
+
+    /** Groupe de l'arrêt candidat i (1..k). */
+    public int group(int i) {
+        return group[i];
+    }
+
+    /** Arrêts candidats du groupe g. */
+    public int[] members(int g) {
+        return members[g];
+    }
+
+    public int end() {
+        return stops.length - 1;
+    }
+
+    public int cost(int i, int j) {
+        return cost[i][j];
+    }
+
+    /** Nombre de sorties candidates. */
+    public int exits() {
+        return exits.length;
+    }
+
+    public Node exit(int e) {
+        return exits[e];
+    }
+
+    /** Coût de l'arrêt i (0..k) jusqu'à la sortie e. */
+    public int exitCost(int i, int e) {
+        return exitCost[i][e];
+    }
+
+    /**
+     * Coût total départ → order[0] → … → arrivée, {@code order} contenant un indice
+     * 1..k d'arrêt candidat par groupe. Retourne {@link #INFINITY} si une étape est impossible.
+     */
+    public int tourCost(int[] order) {
+        return tourCost(order, -1);
+    }
+
+    /** Comme {@link #tourCost(int[])} en finissant sur la sortie e (-1 : la plus proche). */
+    public int tourCost(int[] order, int e) {
+        long total = 0;
+        int current = 0;
+        for (int i = 0; i <= order.length; i++) {
+            int c = i < order.length ? cost[current][order[i]]
+                    : e < 0 ? cost[current][end()] : exitCost[current][e];
+            if (c == INFINITY) return INFINITY;
+            total += c;
+            if (i < order.length) current = order[i];
+        }
+        return total >= INFINITY ? INFINITY : (int) total;
+    }
+
+    /** Chemin complet (nœud par nœud) correspondant à l'ordre donné. */
+    public List<Node> path(int[] order) {
+        return path(order, -1);
+    }
+
+    /** Comme {@link #path(int[])} en finissant sur la sortie e (-1 : la plus proche). */
+    public List<Node> path(int[] order, int e) {
+        List<Node> path = new ArrayList<>();
+        int current = 0;
+        for (int i = 0; i <= order.length; i++) {
+            int target = i < order.length ? ids[order[i]] : exitIds[e < 0 ? exit[current] : e];
+            List<Node> segment = trees != null ? trees[current].pathTo(target)
+                    : graph.hierarchyPath(hierarchy, current == 0 ? startIds : new int[]{ids[current]}, target);
+            if (segment == null) return null;
+            path.addAll(path.isEmpty() ? segment : segment.subList(1, segment.size())); // éviter doublon
+            if (i < order.length) current = order[i];
+        }
+        return path;
+    }
+}
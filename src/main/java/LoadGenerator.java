@@ -0,0 +1,83 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Générateur de charge pour {@link RoutingServer} : rejoue des paniers (format de {@link BatchRouter})
+ * avec un nombre fixe de requêtes simultanées.
+ *
+ * <p>Usage : {@code java LoadGenerator <url> <paniers.jsonl> [--requests=N] [--concurrency=C]}
+ */
+public class LoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage : java LoadGenerator <url> <paniers.jsonl> [--requests=N] [--concurrency=C]");
+            System.exit(1);
+        }
+        URI uri = URI.create(args[0]);
+        List<String> baskets = Files.readAllLines(Path.of(args[1]), StandardCharsets.UTF_8);
+        baskets.removeIf(String::isBlank);
+        if (baskets.isEmpty()) {
+            System.err.println("Aucun panier dans " + args[1]);
+            System.err.println("Usage : java LoadGenerator <url> <paniers.jsonl> [--requests=N] [--concurrency=C]");
+            System.exit(1);
+        }
+        int requests = baskets.size();
+        int concurrency = 64;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith("--requests=")) requests = Integer.parseInt(args[i].substring(11));
+            else if (args[i].startsWith("--concurrency=")) concurrency = Integer.parseInt(args[i].substring(14));
+        }
+
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        Semaphore inFlight = new Semaphore(concurrency);
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                int n = i;
+                String body = baskets.get(i % baskets.size());
+                inFlight.acquire();
+                executor.submit(() -> {
+                    long t0 = System.nanoTime();
+                    try {
+                        HttpRequest request = HttpRequest.newBuilder(uri)
+                                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                                .header("Content-Type", "application/json")
+                                .build();
+                        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (status >= 500) errors.incrementAndGet();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        latencies[n] = System.nanoTime() - t0;
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        System.out.printf("%d requêtes (%d erreurs), %d simultanées, en %.2f s : %.0f req/s%n",
+                requests, errors.get(), concurrency, seconds, requests / seconds);
+        if (requests > 0) {
+            System.out.printf("latence ms : p50 %.2f  p95 %.2f  p99 %.2f  max %.2f%n",
+                    latencies[requests / 2] / 1e6, latencies[(int) (requests * 0.95)] / 1e6,
+                    latencies[(int) (requests * 0.99)] / 1e6, latencies[requests - 1] / 1e6);
+        }
+    }
+}
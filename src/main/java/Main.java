@@ -1,35 +1,60 @@
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.stream.Collectors;
 
 public class Main extends Application {
+    // choix « n'importe laquelle » : l'itinéraire retient l'entrée / la caisse la moins chère
+    private static final String INDIFFERENTE = "Indifférente";
+    private static final List<String> ENTREES = List.of("Entrée A", "Entrée B");
+    private static final List<String> CAISSES = List.of("Caisse A", "Caisse B", "Caisse C");
+
     private ComboBox<String> entreeCombo;
     private ComboBox<String> sortieCombo;
     private Label poidsLabel;
     private GraphView graphView;
     private List<ProduitButton> produits;
+    // --layouts=dossier : plans rechargés à chaud, null sinon
+    private LayoutManager plans;
+    private ComboBox<String> planCombo;
 
     @Override
     public void start(Stage stage) {
-        InputStream geoStream = getClass().getResourceAsStream("/graph.json");
-        String json;
+        GraphData data;
+        String chemin = getParameters().getNamed().get("graph");
+        String ecart = getParameters().getNamed().get("max-snap");
         try {
-            assert geoStream != null;
-            json = new String(geoStream.readAllBytes(), StandardCharsets.UTF_8);
+            data = chargerPlan(getParameters().getNamed().get("layouts"), chemin,
+                    ecart != null ? Double.parseDouble(ecart) : Double.POSITIVE_INFINITY);
         } catch (Exception e) {
             throw new RuntimeException("Erreur chargement JSON", e);
         }
+        data.reportStrays(chemin != null ? chemin : "graph.json");
 
-        graphView = new GraphView(json);
+        graphView = new GraphView(data);
         graphView.setPrefSize(700, 500);
+        if (plans != null) {
+            // thread de chargement : l'index d'affichage y est construit, seule la bascule passe par JavaFX
+            plans.addListener(plan -> {
+                graphView.setGraph(plan.data);
+                Platform.runLater(() -> {
+                    planCombo.setValue(plan.file.getFileName().toString());
+                    poidsLabel.setText("Poids : -");
+                });
+            });
+        }
 
         VBox rightPanel = new VBox(10);
         rightPanel.setPrefWidth(150);
@@ -63,10 +88,12 @@ public class Main extends Application {
         rightPanel.getChildren().addAll(new Label("Produits :"), produitBox);
 
         entreeCombo = new ComboBox<>();
-        entreeCombo.getItems().addAll("Entrée A", "Entrée B");
+        entreeCombo.getItems().addAll(ENTREES);
+        entreeCombo.getItems().add(INDIFFERENTE);
 
         sortieCombo = new ComboBox<>();
-        sortieCombo.getItems().addAll("Caisse A", "Caisse B", "Caisse C");
+        sortieCombo.getItems().addAll(CAISSES);
+        sortieCombo.getItems().add(INDIFFERENTE);
 
         poidsLabel = new Label("Poids : -");
 
@@ -82,6 +109,14 @@ public class Main extends Application {
                 poidsLabel,
                 goButton, resetButton
         );
+        if (plans != null) {
+            planCombo = new ComboBox<>();
+            planCombo.getItems().addAll(plans.layouts());
+            planCombo.setValue(plans.current().file.getFileName().toString());
+            planCombo.setOnShowing(e -> planCombo.getItems().setAll(plans.layouts()));
+            planCombo.setOnAction(e -> changerPlan(planCombo.getValue()));
+            bottom.getChildren().addAll(0, List.of(new Label("Plan:"), planCombo));
+        }
         bottom.setStyle(
                 "-fx-padding: 10;" +
                         "-fx-alignment: center;" +
@@ -104,6 +139,36 @@ public class Main extends Application {
         stage.show();
     }
 
+    // --graph=plan.bin (compilé par GraphBinary) ou --graph=plan.json ; par défaut /graph.json.
+    // --layouts=dossier : --graph nomme un plan du dossier (graph.json par défaut), surveillé.
+    // --max-snap=distance : sommets d'allée ignorés au-delà, signalés au démarrage
+    private GraphData chargerPlan(String dossier, String chemin, double ecart) throws IOException {
+        if (dossier != null) {
+            plans = new LayoutManager(Path.of(dossier), chemin != null ? chemin : "graph.json", ecart);
+            return plans.current().data;
+        }
+        if (chemin != null) {
+            return GraphData.load(Path.of(chemin), ecart);
+        }
+        try (InputStream geoStream = getClass().getResourceAsStream("/graph.json")) {
+            assert geoStream != null;
+            return new GraphData(new InputStreamReader(geoStream, StandardCharsets.UTF_8), ecart);
+        }
+    }
+
+    // chargé en arrière-plan ; l'affichage bascule via l'écouteur du gestionnaire
+    private void changerPlan(String nom) {
+        if (nom == null || plans.current().file.getFileName().toString().equals(nom)) return;
+        plans.select(nom).whenComplete((plan, erreur) -> {
+            // annulé : un autre plan a été choisi entre-temps, c'est lui qui mettra la liste à jour
+            if (erreur == null || erreur instanceof CancellationException) return;
+            Platform.runLater(() -> {
+                planCombo.setValue(plans.current().file.getFileName().toString());
+                poidsLabel.setText("Plan illisible : " + nom);
+            });
+        });
+    }
+
     private void lancerDijkstra() {
         String entree = entreeCombo.getValue();
         String sortie = sortieCombo.getValue();
@@ -114,8 +179,24 @@ public class Main extends Application {
                 .map(ProduitButton::getProduitName)
                 .collect(Collectors.toList());
 
-        int poids = graphView.runDijkstra(entree, sortie, produitsChoisis);
-        poidsLabel.setText("Poids : " + poids);
+        List<String> entrees = entree.equals(INDIFFERENTE) ? ENTREES : List.of(entree);
+        List<String> sorties = sortie.equals(INDIFFERENTE) ? CAISSES : List.of(sortie);
+
+        poidsLabel.setText("Poids : …");
+        graphView.runDijkstraAsync(entrees, sorties, produitsChoisis, route -> poidsLabel.setText(poids(route)));
+    }
+
+    // poids de l'itinéraire, suivi du coût par caisse en mode « n'importe quelle caisse »
+    private static String poids(Route route) {
+        if (route == null) return "Poids : -1";
+        StringBuilder texte = new StringBuilder("Poids : " + route.weight);
+        if (route.costsByExit.size() > 1) {
+            texte.append(" (");
+            route.costsByExit.forEach((caisse, cout) -> texte.append(caisse.name).append(" ").append(cout).append(", "));
+            texte.setLength(texte.length() - 2);
+            texte.append(")");
+        }
+        return texte.toString();
     }
 
     private void reset() {
@@ -128,7 +209,13 @@ public class Main extends Application {
         poidsLabel.setText("Poids : -");
     }
 
+    @Override
+    public void stop() {
+        if (plans != null) plans.close();
+    }
+
     public static void main(String[] args) {
-        launch();
+        RoutingMetrics.install();
+        launch(args);
     }
 }
@@ -1,7 +1,6 @@
 public class Node {
-    public String name;
-    public double lon, lat;
-    public double x, y;
+    public final String name;
+    public final double lon, lat;
 
     public Node(String name, double lon, double lat) {
         this.name = name;
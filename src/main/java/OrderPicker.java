@@ -0,0 +1,340 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * Préparation groupée (« click and collect ») : plusieurs commandes réparties entre
+ * plusieurs préparateurs, chacun avec un chariot d'au plus {@code capacity} commandes,
+ * puis un parcours départ → produits de ses commandes → arrivée par préparateur. Un
+ * produit commun à deux commandes d'un même chariot n'est visité qu'une fois.
+ *
+ * <p>Une seule {@link LegMatrix} pour tous les produits de toutes les commandes ; le coût
+ * d'un chariot est celui d'un parcours sur une sous-matrice (Held-Karp si elle est petite,
+ * sinon {@link HeuristicTourSolver#localOptimum}), mémorisé par ensemble de produits.
+ * Répartition initiale gloutonne, puis recherche locale par meilleure amélioration
+ * (déplacer une commande, échanger deux commandes) dont les mouvements sont évalués en
+ * parallèle sur un {@link ForkJoinPool}. Le résultat ne dépend pas du parallélisme.
+ */
+public class OrderPicker {
+    // au-delà, le parcours d'un chariot est calculé par l'heuristique
+    private static final long EXACT_STATES = 1L << 14;
+    private static final int MAX_ROUNDS = 1000;
+    // mouvements évalués par tâche feuille
+    private static final int SPLIT = 32;
+
+    public enum Objective {
+        /** Somme des coûts des parcours (puis le plus long). */
+        TOTAL,
+        /** Coût du parcours le plus long (puis la somme) : tous les chariots finissent au plus tôt. */
+        MAKESPAN
+    }
+
+    private final GraphData graph;
+    private final ForkJoinPool pool;
+
+    public OrderPicker(GraphData graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    public OrderPicker(GraphData graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    /** Comme {@link #planGroups}, chaque commande étant une liste de nœuds à visiter tous. */
+    public Plan plan(Node start, Node end, List<List<Node>> orders, int pickers, int capacity, Objective objective) {
+        List<List<List<Node>>> grouped = new ArrayList<>(orders.size());
+        for (List<Node> order : orders) grouped.add(TourSolver.singletons(order));
+        return planGroups(start, end, grouped, pickers, capacity, objective);
+    }
+
+    /**
+     * Répartit les commandes (un groupe de nœuds candidats par produit, voir
+     * {@link GraphData#getPathGroups}) entre {@code pickers} chariots de {@code capacity}
+     * commandes. Retourne null si une commande est inaccessible.
+     */
+    public Plan planGroups(Node start, Node end, List<List<List<Node>>> orders, int pickers, int capacity,
+                           Objective objective) {
+        if (pickers < 1 || capacity < 1 || (long) pickers * capacity < orders.size()) {
+            throw new IllegalArgumentException("Capacité insuffisante : " + orders.size() + " commandes pour "
+                    + pickers + " chariots de " + capacity);
+        }
+        // produits distincts, partagés entre commandes
+        Map<List<Node>, Integer> index = new LinkedHashMap<>();
+        BitSet[] orderGroups = new BitSet[orders.size()];
+        for (int o = 0; o < orderGroups.length; o++) {
+            orderGroups[o] = new BitSet();
+            for (List<Node> group : orders.get(o)) {
+                if (group.isEmpty()) continue;
+                orderGroups[o].set(index.computeIfAbsent(group, g -> index.size()));
+            }
+        }
+        LegMatrix legs = new LegMatrix(graph, List.of(start), List.of(end), new ArrayList<>(index.keySet()));
+        Search search = new Search(legs, orderGroups, pickers, capacity, objective);
+        for (BitSet groups : orderGroups) {
+            if (search.cost(groups) == LegMatrix.INFINITY) return null;
+        }
+        search.assignGreedily();
+        search.improve();
+        return search.plan();
+    }
+
+    /** Répartition retenue : un lot par préparateur (éventuellement vide). */
+    public static class Plan {
+        public final List<Batch> batches;
+        public final long total;
+        public final int makespan;
+        // mouvements de recherche locale examinés
+        public final long movesEvaluated;
+
+        Plan(List<Batch> batches, long movesEvaluated) {
+            this.batches = batches;
+            long total = 0;
+            int makespan = 0;
+            for (Batch batch : batches) {
+                total += batch.cost;
+                makespan = Math.max(makespan, batch.cost);
+            }
+            this.total = total;
+            this.makespan = makespan;
+            this.movesEvaluated = movesEvaluated;
+        }
+    }
+
+    /** Commandes d'un chariot (indices dans la liste fournie) et son parcours, vide s'il n'en a aucune. */
+    public static class Batch {
+        public final int[] orders;
+        public final List<Node> path;
+        public final int cost;
+
+        Batch(int[] orders, List<Node> path, int cost) {
+            this.orders = orders;
+            this.path = path;
+            this.cost = cost;
+        }
+    }
+
+    // état de la recherche locale ; lu en parallèle pendant l'évaluation d'un tour, modifié entre deux
+    private final class Search {
+        private final LegMatrix legs;
+        private final BitSet[] orderGroups;
+        private final int pickers, capacity;
+        private final Objective objective;
+        private final Map<BitSet, Integer> costs = new ConcurrentHashMap<>();
+        // owner[o] : chariot de la commande o ; count[p][g] : commandes du chariot p demandant le produit g
+        private final int[] owner;
+        private final int[] load;
+        private final int[][] count;
+        private final BitSet[] groups;
+        private final int[] cost;
+        private long moves;
+
+        Search(LegMatrix legs, BitSet[] orderGroups, int pickers, int capacity, Objective objective) {
+            this.legs = legs;
+            this.orderGroups = orderGroups;
+            this.pickers = pickers;
+            this.capacity = capacity;
+            this.objective = objective;
+            owner = new int[orderGroups.length];
+            Arrays.fill(owner, -1);
+            load = new int[pickers];
+            count = new int[pickers][legs.groups()];
+            groups = new BitSet[pickers];
+            for (int p = 0; p < pickers; p++) groups[p] = new BitSet();
+            cost = new int[pickers];
+        }
+
+        // coût du meilleur parcours passant par ces produits (0 sans produit : le chariot ne sort pas)
+        int cost(BitSet set) {
+            if (set.isEmpty()) return 0;
+            Integer known = costs.get(set);
+            if (known != null) return known;
+            LegMatrix sub = legs.subset(set.stream().toArray());
+            int[] order = order(sub);
+            int value = order == null ? LegMatrix.INFINITY : sub.tourCost(order);
+            costs.putIfAbsent((BitSet) set.clone(), value);
+            return value;
+        }
+
+        private int[] order(LegMatrix sub) {
+            if ((long) sub.required() << sub.groups() <= EXACT_STATES) return new HeldKarpSolver().solve(sub);
+            return new HeuristicTourSolver(0).localOptimum(sub);
+        }
+
+        // produits du chariot p après retrait de la commande removed et ajout de added (-1 : aucune)
+        private BitSet after(int p, int removed, int added) {
+            BitSet set = (BitSet) groups[p].clone();
+            if (removed >= 0) {
+                for (int g = orderGroups[removed].nextSetBit(0); g >= 0; g = orderGroups[removed].nextSetBit(g + 1)) {
+                    if (count[p][g] == 1) set.clear(g);
+                }
+            }
+            if (added >= 0) set.or(orderGroups[added]);
+            return set;
+        }
+
+        private void assign(int o, int p) {
+            int previous = owner[o];
+            if (previous >= 0) {
+                load[previous]--;
+                for (int g = orderGroups[o].nextSetBit(0); g >= 0; g = orderGroups[o].nextSetBit(g + 1)) {
+                    if (--count[previous][g] == 0) groups[previous].clear(g);
+                }
+            }
+            owner[o] = p;
+            load[p]++;
+            for (int g = orderGroups[o].nextSetBit(0); g >= 0; g = orderGroups[o].nextSetBit(g + 1)) {
+                count[p][g]++;
+            }
+            groups[p].or(orderGroups[o]);
+        }
+
+        // score lexicographique {principal, secondaire} avec les chariots a et b à ces coûts
+        private long[] score(int a, int costA, int b, int costB) {
+            long total = 0;
+            int max = 0;
+            for (int p = 0; p < pickers; p++) {
+                int c = p == a ? costA : p == b ? costB : cost[p];
+                total += c;
+                max = Math.max(max, c);
+            }
+            return objective == Objective.TOTAL ? new long[]{total, max} : new long[]{max, total};
+        }
+
+        // plus grosses commandes d'abord, chacune au chariot (non plein) qui dégrade le moins le score
+        void assignGreedily() {
+            Integer[] sorted = new Integer[orderGroups.length];
+            for (int o = 0; o < sorted.length; o++) sorted[o] = o;
+            Arrays.sort(sorted, (x, y) -> Integer.compare(orderGroups[y].cardinality(), orderGroups[x].cardinality()));
+            for (int o : sorted) {
+                int best = -1, bestCost = 0;
+                long[] bestScore = null;
+                for (int p = 0; p < pickers; p++) {
+                    if (load[p] == capacity) continue;
+                    int c = cost(after(p, -1, o));
+                    long[] s = score(p, c, -1, 0);
+                    if (bestScore == null || Arrays.compare(s, bestScore) < 0) {
+                        best = p;
+                        bestCost = c;
+                        bestScore = s;
+                    }
+                }
+                assign(o, best);
+                cost[best] = bestCost;
+            }
+        }
+
+        // mouvement m : m < n·k déplace la commande m / k vers le chariot m % k,
+        // sinon échange les commandes (m - n·k) / n et (m - n·k) % n
+        private int moveCount() {
+            int n = orderGroups.length;
+            return n * pickers + n * n;
+        }
+
+        // {principal, secondaire, m, coût de a, coût de b}, ou null si le mouvement est sans objet
+        private long[] evaluate(int m) {
+            int n = orderGroups.length;
+            int o, a, b, removedB, addedB;
+            if (m < n * pickers) {
+                o = m / pickers;
+                a = owner[o];
+                b = m % pickers;
+                if (b == a || load[b] == capacity) return null;
+                removedB = -1;
+                addedB = o;
+            } else {
+                o = (m - n * pickers) / n;
+                int other = (m - n * pickers) % n;
+                a = owner[o];
+                b = owner[other];
+                if (other <= o || a == b) return null;
+                removedB = other;
+                addedB = o;
+            }
+            int costA = cost(after(a, o, removedB));
+            int costB = cost(after(b, removedB, addedB));
+            long[] s = score(a, costA, b, costB);
+            return new long[]{s[0], s[1], m, costA, costB};
+        }
+
+        void improve() {
+            long[] current = score(-1, 0, -1, 0);
+            for (int round = 0; round < MAX_ROUNDS; round++) {
+                TourSolver.checkCancelled();
+                long[] best = pool.invoke(new Best(0, moveCount()));
+                moves += moveCount();
+                if (best == null || Arrays.compare(best, 0, 2, current, 0, 2) >= 0) return;
+                int m = (int) best[2], n = orderGroups.length;
+                int o = m < n * pickers ? m / pickers : (m - n * pickers) / n;
+                int a = owner[o];
+                if (m < n * pickers) {
+                    int b = m % pickers;
+                    assign(o, b);
+                    cost[a] = (int) best[3];
+                    cost[b] = (int) best[4];
+                } else {
+                    int other = (m - n * pickers) % n;
+                    int b = owner[other];
+                    assign(o, b);
+                    assign(other, a);
+                    cost[a] = (int) best[3];
+                    cost[b] = (int) best[4];
+                }
+                current = new long[]{best[0], best[1]};
+            }
+        }
+
+        Plan plan() {
+            List<Batch> batches = new ArrayList<>(pickers);
+            for (int p = 0; p < pickers; p++) {
+                int picker = p;
+                int[] orders = IntStream.range(0, owner.length).filter(o -> owner[o] == picker).toArray();
+                if (groups[p].isEmpty()) {
+                    batches.add(new Batch(orders, List.of(), 0));
+                    continue;
+                }
+                LegMatrix sub = legs.subset(groups[p].stream().toArray());
+                int[] order = order(sub);
+                batches.add(new Batch(orders, sub.path(order), sub.tourCost(order)));
+            }
+            return new Plan(batches, moves);
+        }
+
+        // meilleur mouvement de [from, to) ; à score égal, le plus petit indice
+        private final class Best extends RecursiveTask<long[]> {
+            private final int from, to;
+
+            Best(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected long[] compute() {
+                if (to - from <= SPLIT) {
+                    long[] best = null;
+                    for (int m = from; m < to; m++) {
+                        long[] move = evaluate(m);
+                        if (move != null && (best == null || Arrays.compare(move, 0, 2, best, 0, 2) < 0)) best = move;
+                    }
+                    return best;
+                }
+                int middle = (from + to) >>> 1;
+                Best right = new Best(middle, to);
+                right.fork();
+                long[] left = new Best(from, middle).compute();
+                long[] other = right.join();
+                if (left == null) return other;
+                if (other == null) return left;
+                return Arrays.compare(other, 0, 2, left, 0, 2) < 0 ? other : left;
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index produit → nœuds candidats, construit au chargement à partir des noms de nœuds.
+ * Un produit correspond à tous les nœuds dont le nom le contient (sans tenir compte de
+ * la casse) : plusieurs rayons d'une même catégorie forment un groupe dont un seul doit
+ * être visité. Les noms identiques sont regroupés une fois pour toutes et chaque réponse
+ * est mémorisée, le plan étant immuable.
+ */
+public class ProductIndex {
+    private static final int MAX_MEMO = 4096;
+
+    private final Map<String, List<Node>> byName = new LinkedHashMap<>();
+    private final Map<String, List<Node>> memo = new ConcurrentHashMap<>();
+
+    public ProductIndex(List<Node> nodes) {
+        for (Node node : nodes) {
+            byName.computeIfAbsent(node.name.toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(node);
+        }
+        byName.replaceAll((name, list) -> List.copyOf(list));
+    }
+
+    /**
+     * Nœuds candidats pour le produit, dans l'ordre du plan ; liste vide si aucun ne correspond
+     * ou si le nom est vide (il serait contenu dans tous les noms de nœuds).
+     */
+    public List<Node> candidates(String product) {
+        if (product.isBlank()) return List.of();
+        String key = product.toLowerCase(Locale.ROOT);
+        List<Node> found = memo.get(key);
+        if (found != null) return found;
+
+        List<Node> exact = byName.get(key);
+        List<Node> matches = new ArrayList<>(exact == null ? List.of() : exact);
+        for (Map.Entry<String, List<Node>> entry : byName.entrySet()) {
+            if (entry.getValue() != exact && entry.getKey().contains(key)) matches.addAll(entry.getValue());
+        }
+        found = List.copyOf(matches);
+        if (memo.size() < MAX_MEMO) memo.put(key, found);
+        return found;
+    }
+}
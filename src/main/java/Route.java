@@ -0,0 +1,46 @@
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Itinéraire calculé pour un panier : chemin nœud par nœud, arêtes parcourues et coûts
+ * cumulés ({@link #trace}), poids total et détail par étape (entrée → produit → … → caisse).
+ */
+public class Route {
+    public final List<Node> path;
+    public final RoutePath trace;
+    public final int weight;
+    public final List<Leg> legs;
+    // mode « n'importe quelle caisse » : coût optimal vers chaque caisse accessible, vide sinon
+    public final Map<Node, Integer> costsByExit;
+
+    public Route(RoutePath trace, List<Leg> legs) {
+        this(trace, legs, Map.of());
+    }
+
+    public Route(RoutePath trace, List<Leg> legs, Map<Node, Integer> costsByExit) {
+        this.path = trace.nodes;
+        this.trace = trace;
+        this.weight = trace.cost();
+        this.legs = legs;
+        this.costsByExit = costsByExit;
+    }
+
+    /**
+     * Étape entre deux arrêts (entrée, produit ou caisse) ; {@code start} et {@code end}
+     * sont leurs positions dans {@link #path}, les arêtes de l'étape sont les pas
+     * {@code start} à {@code end - 1} de {@link #trace}.
+     */
+    public static class Leg {
+        public final Node from, to;
+        public final int weight;
+        public final int start, end;
+
+        public Leg(Node from, Node to, int weight, int start, int end) {
+            this.from = from;
+            this.to = to;
+            this.weight = weight;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
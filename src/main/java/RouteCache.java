@@ -0,0 +1,167 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache LRU à deux niveaux pour {@link GraphData} :
+ * <ol>
+ *   <li>itinéraires complets, par (départ, arrivée, ensemble trié des nœuds obligatoires, solveur) ;</li>
+ *   <li>arbres de plus courts chemins par nœud source, partagés entre paniers différents.</li>
+ * </ol>
+ * Chaque entrée est liée au {@link CompiledGraph} qui l'a produite : dès que le graphe
+ * compilé change, le cache est vidé au prochain accès. Un simple changement de poids
+ * passe plutôt par {@link #repair}, qui garde les arbres en les réparant.
+ */
+public class RouteCache {
+    private final Lru<RouteKey, List<Node>> routes;
+    private final Lru<Integer, ShortestPathTree> trees;
+    private CompiledGraph graph;
+
+    private final LongAdder routeHits = new LongAdder();
+    private final LongAdder routeMisses = new LongAdder();
+    private final LongAdder treeHits = new LongAdder();
+    private final LongAdder treeMisses = new LongAdder();
+
+    public RouteCache(int maxRoutes, int maxTrees) {
+        routes = new Lru<>(maxRoutes);
+        trees = new Lru<>(maxTrees);
+    }
+
+    public synchronized List<Node> route(CompiledGraph g, RouteKey key) {
+        List<Node> path = validate(g) ? routes.get(key) : null;
+        (path != null ? routeHits : routeMisses).increment();
+        return path;
+    }
+
+    public synchronized void putRoute(CompiledGraph g, RouteKey key, List<Node> path) {
+        if (validate(g)) routes.put(key, List.copyOf(path));
+    }
+
+    public synchronized ShortestPathTree tree(CompiledGraph g, int source) {
+        ShortestPathTree tree = validate(g) ? trees.get(source) : null;
+        (tree != null ? treeHits : treeMisses).increment();
+        return tree;
+    }
+
+    public synchronized void putTree(CompiledGraph g, ShortestPathTree tree) {
+        if (validate(g)) trees.put(tree.source, tree);
+    }
+
+    /**
+     * Passage de {@code old} à {@code updated}, qui ne diffère que par le poids des arêtes
+     * {@code changed} : les arbres sont réparés (hors verrou) au lieu d'être jetés ; les
+     * itinéraires, qu'une baisse de poids n'importe où peut rendre sous-optimaux, sont vidés.
+     */
+    public void repair(CompiledGraph old, CompiledGraph updated, int[] changed) {
+        List<ShortestPathTree> stale;
+        synchronized (this) {
+            if (graph != old) {
+                validate(updated);
+                return;
+            }
+            routes.clear();
+            stale = new ArrayList<>(trees.values());
+        }
+        List<ShortestPathTree> repaired = new ArrayList<>(stale.size());
+        for (ShortestPathTree tree : stale) repaired.add(tree.repair(updated, changed));
+        synchronized (this) {
+            if (!validate(updated)) return;
+            for (ShortestPathTree tree : repaired) trees.putIfAbsent(tree.source, tree);
+        }
+    }
+
+    public synchronized void clear() {
+        routes.clear();
+        trees.clear();
+    }
+
+    // false si g est une version antérieure du graphe courant (requête commencée avant un changement de poids)
+    private boolean validate(CompiledGraph g) {
+        if (g == graph) return true;
+        if (graph != null && g.nodes == graph.nodes && g.version < graph.version) return false;
+        routes.clear();
+        trees.clear();
+        graph = g;
+        return true;
+    }
+
+    public long routeHits() {
+        return routeHits.sum();
+    }
+
+    public long routeMisses() {
+        return routeMisses.sum();
+    }
+
+    public long treeHits() {
+        return treeHits.sum();
+    }
+
+    public long treeMisses() {
+        return treeMisses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("itinéraires %d/%d, arbres %d/%d (succès/échecs)",
+                routeHits(), routeMisses(), treeHits(), treeMisses());
+    }
+
+    /**
+     * Clé d'itinéraire : l'ordre des groupes, l'ordre des candidats dans un groupe et les
+     * doublons n'ont pas d'importance.
+     */
+    public static final class RouteKey {
+        private final int start, end;
+        private final int[][] groups;
+        private final TourSolver solver;
+
+        public RouteKey(int start, int end, int[][] groups, TourSolver solver) {
+            this.start = start;
+            this.end = end;
+            this.groups = canonical(groups);
+            this.solver = solver;
+        }
+
+        // groupes triés et sans doublons, eux-mêmes triés et sans doublons
+        private static int[][] canonical(int[][] groups) {
+            int[][] sorted = Arrays.stream(groups)
+                    .map(g -> Arrays.stream(g).sorted().distinct().toArray())
+                    .sorted(Arrays::compare)
+                    .toArray(int[][]::new);
+            int size = 0;
+            for (int[] group : sorted) {
+                if (size == 0 || !Arrays.equals(sorted[size - 1], group)) sorted[size++] = group;
+            }
+            return Arrays.copyOf(sorted, size);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof RouteKey k && start == k.start && end == k.end
+                    && solver == k.solver && Arrays.deepEquals(groups, k.groups);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * (31 * start + end) + Arrays.deepHashCode(groups)) + System.identityHashCode(solver);
+        }
+    }
+
+    private static final class Lru<K, V> extends LinkedHashMap<K, V> {
+        private final int capacity;
+
+        Lru(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
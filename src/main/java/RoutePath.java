@@ -0,0 +1,73 @@
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Chemin nœud par nœud avec, pour chaque pas, l'arête empruntée (indice dans
+ * {@link GraphData#edges}, parcourue dans un sens ou dans l'autre) et le coût cumulé
+ * depuis le départ. Relevé une seule fois sur la version du graphe qui a servi à la
+ * recherche : surlignage, poids total et poids d'une étape en O(longueur du chemin).
+ */
+public class RoutePath {
+    public final List<Node> nodes;
+    // edges[i] : arête entre nodes[i] et nodes[i + 1] ; costs[i] : coût de nodes[0] à nodes[i]
+    private final int[] edges;
+    private final int[] costs;
+
+    private RoutePath(List<Node> nodes, int[] edges, int[] costs) {
+        this.nodes = nodes;
+        this.edges = edges;
+        this.costs = costs;
+    }
+
+    /**
+     * Relève les arêtes du chemin dans l'adjacence CSR de chaque nœud (l'arête la plus
+     * légère entre deux voisins, comme la recherche). Lève IllegalArgumentException si
+     * deux nœuds consécutifs ne sont pas voisins.
+     */
+    public static RoutePath of(CompiledGraph graph, List<Node> nodes) {
+        int steps = Math.max(0, nodes.size() - 1);
+        int[] edges = new int[steps];
+        int[] costs = new int[nodes.size()];
+        for (int i = 0; i < steps; i++) {
+            int u = graph.id(nodes.get(i)), v = graph.id(nodes.get(i + 1));
+            int a = u < 0 || v < 0 ? -1 : graph.arcBetween(u, v);
+            if (a < 0) {
+                throw new IllegalArgumentException("Pas d'arête entre " + nodes.get(i).name + " et " + nodes.get(i + 1).name);
+            }
+            edges[i] = graph.edgeIds[a];
+            costs[i + 1] = costs[i] + graph.weights[a];
+        }
+        return new RoutePath(nodes, edges, costs);
+    }
+
+    /** Nombre de pas (arêtes parcourues). */
+    public int steps() {
+        return edges.length;
+    }
+
+    /** Arête du pas i, entre nodes[i] et nodes[i + 1]. */
+    public int edge(int step) {
+        return edges[step];
+    }
+
+    /** Coût du départ jusqu'à nodes[i]. */
+    public int costTo(int i) {
+        return costs[i];
+    }
+
+    /** Coût de nodes[from] à nodes[to]. */
+    public int cost(int from, int to) {
+        return costs[to] - costs[from];
+    }
+
+    public int cost() {
+        return costs.length == 0 ? 0 : costs[costs.length - 1];
+    }
+
+    /** Indices dans {@link GraphData#edges} des arêtes parcourues. */
+    public BitSet edgeSet() {
+        BitSet used = new BitSet();
+        for (int e : edges) used.set(e);
+        return used;
+    }
+}
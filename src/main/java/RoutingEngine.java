@@ -0,0 +1,142 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Cœur du routage, sans JavaFX : résolution des noms d'entrée, de sortie et de produits
+ * puis calcul de l'itinéraire. Ne modifie pas le graphe, peut donc être appelé depuis
+ * plusieurs threads à la fois.
+ */
+public class RoutingEngine {
+    private final GraphData data;
+
+    public RoutingEngine(GraphData data) {
+        this.data = data;
+    }
+
+    public GraphData data() {
+        return data;
+    }
+
+    public Node findNode(String name) {
+        return data.nodes.stream().filter(n -> n.name.equalsIgnoreCase(name)).findFirst().orElse(null);
+    }
+
+    /**
+     * Un groupe de nœuds candidats par produit (mot-clé partiel, via l'index du plan) :
+     * un seul rayon par groupe sera visité. Les produits introuvables sont ignorés.
+     */
+    public List<List<Node>> resolveGroups(List<String> required) {
+        List<List<Node>> groups = new ArrayList<>();
+        for (String product : required) {
+            List<Node> candidates = data.products().candidates(product);
+            if (!candidates.isEmpty()) groups.add(candidates);
+        }
+        return groups;
+    }
+
+    /** Itinéraire entrée → produits → sortie, ou null si une extrémité est inconnue ou inaccessible. */
+    public Route route(String startName, String endName, List<String> required) {
+        return route(startName, endName, required, route -> { });
+    }
+
+    /** Variante progressive : {@code progress} reçoit chaque meilleur itinéraire trouvé avant le résultat final. */
+    public Route route(String startName, String endName, List<String> required, Consumer<Route> progress) {
+        Node start = findNode(startName);
+        Node end = findNode(endName);
+        if (start == null || end == null) return null;
+
+        List<List<Node>> groups = resolveGroups(required);
+        List<Node> path = data.getPathGroups(start, end, groups, tour -> progress.accept(toRoute(tour.path, groups)));
+        if (path == null || path.isEmpty()) return null;
+        return toRoute(path, groups);
+    }
+
+    /**
+     * Mode « n'importe quelle entrée / n'importe quelle sortie » : itinéraire le moins cher
+     * parmi toutes les combinaisons, avec le coût optimal vers chaque sortie accessible
+     * (pour répartir la charge entre caisses). Une seule entrée et une seule sortie
+     * reviennent à {@link #route(String, String, List, Consumer)}. Le solveur du plan est
+     * respecté (voir {@link GraphData#getPathsByExit}) ; {@code progress} reçoit les
+     * itinéraires successivement meilleurs, sans les coûts par sortie.
+     */
+    public Route route(List<String> startNames, List<String> endNames, List<String> required,
+                       Consumer<Route> progress) {
+        if (startNames.size() == 1 && endNames.size() == 1) {
+            return route(startNames.get(0), endNames.get(0), required, progress);
+        }
+        List<Node> starts = new ArrayList<>();
+        List<Node> ends = new ArrayList<>();
+        for (String name : startNames) {
+            Node start = findNode(name);
+            if (start == null) return null;
+            starts.add(start);
+        }
+        for (String name : endNames) {
+            Node end = findNode(name);
+            if (end == null) return null;
+            ends.add(end);
+        }
+
+        List<List<Node>> groups = resolveGroups(required);
+        List<Tour> tours = data.getPathsByExit(starts, ends, groups, tour -> progress.accept(toRoute(tour.path, groups)));
+        Map<Node, Integer> costs = new LinkedHashMap<>();
+        Tour best = null;
+        for (int e = 0; e < tours.size(); e++) {
+            Tour tour = tours.get(e);
+            if (tour == null) continue;
+            costs.put(ends.get(e), tour.cost);
+            if (best == null || tour.cost < best.cost) best = tour;
+        }
+        if (best == null) return null;
+        RoutePath trace = data.trace(best.path);
+        return new Route(trace, legs(trace, groups), costs);
+    }
+
+    /**
+     * Préparation groupée : répartit les commandes (listes de produits) entre {@code pickers}
+     * chariots d'au plus {@code capacity} commandes, voir {@link OrderPicker}. Retourne null si
+     * une extrémité est inconnue ou si une commande est inaccessible.
+     */
+    public OrderPicker.Plan pick(String startName, String endName, List<List<String>> orders,
+                                 int pickers, int capacity, OrderPicker.Objective objective) {
+        Node start = findNode(startName);
+        Node end = findNode(endName);
+        if (start == null || end == null) return null;
+
+        List<List<List<Node>>> groups = new ArrayList<>(orders.size());
+        for (List<String> order : orders) groups.add(resolveGroups(order));
+        return new OrderPicker(data).planGroups(start, end, groups, pickers, capacity, objective);
+    }
+
+    private Route toRoute(List<Node> path, List<List<Node>> groups) {
+        RoutePath trace = data.trace(path);
+        return new Route(trace, legs(trace, groups));
+    }
+
+    // découpe le chemin au premier passage sur un candidat de chaque groupe
+    private List<Route.Leg> legs(RoutePath trace, List<List<Node>> groups) {
+        List<Node> path = trace.nodes;
+        List<Set<Node>> pending = new ArrayList<>();
+        for (List<Node> group : groups) {
+            Set<Node> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+            candidates.addAll(group);
+            pending.add(candidates);
+        }
+        List<Route.Leg> legs = new ArrayList<>();
+        int from = 0;
+        for (int i = 1; i < path.size(); i++) {
+            Node node = path.get(i);
+            if (pending.removeIf(candidates -> candidates.contains(node)) || i == path.size() - 1) {
+                legs.add(new Route.Leg(path.get(from), path.get(i), trace.cost(from, i), from, i));
+                from = i;
+            }
+        }
+        return legs;
+    }
+}
@@ -0,0 +1,313 @@
+import org.json.JSONObject;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Compteurs et histogrammes du routage pour tout le processus : chargement des plans,
+ * recherches point à point ({@link GraphData#dijkstra}, tronçons de la hiérarchie),
+ * recherches complètes des parcours ({@link GraphData#tree}, calcul plusieurs-vers-plusieurs
+ * de la hiérarchie), parcours ({@link GraphData#getPath}) et caches. Désactivés par défaut :
+ * chaque point de mesure ne coûte alors qu'une lecture de booléen ({@link #start} renvoie 0
+ * et rien n'est enregistré).
+ *
+ * <p>{@code -Dcoursetoujours.metrics=true} les active au démarrage ;
+ * {@code -Dcoursetoujours.metrics.log=secondes} écrit en plus une ligne JSON périodique
+ * sur la sortie d'erreur. Exposés en JMX sous {@value #OBJECT_NAME} par {@link #install()}.
+ */
+public final class RoutingMetrics implements RoutingMetricsMBean {
+    public static final String OBJECT_NAME = "CourseToujours:type=RoutingMetrics";
+    private static final RoutingMetrics INSTANCE = new RoutingMetrics();
+
+    private volatile boolean enabled = Boolean.getBoolean("coursetoujours.metrics");
+    private final LongAdder graphLoads = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private volatile long lastParseNanos;
+    private final LatencyHistogram searches = new LatencyHistogram();
+    private final LongAdder settled = new LongAdder();
+    private final LongAdder relaxed = new LongAdder();
+    private final LatencyHistogram trees = new LatencyHistogram();
+    private final LongAdder treeSettled = new LongAdder();
+    private final LongAdder treeRelaxed = new LongAdder();
+    private final LatencyHistogram tours = new LatencyHistogram();
+    private final LongAdder orderings = new LongAdder();
+    private final LongAdder routeHits = new LongAdder();
+    private final LongAdder routeMisses = new LongAdder();
+    private final LongAdder treeHits = new LongAdder();
+    private final LongAdder treeMisses = new LongAdder();
+    private ScheduledExecutorService logger;
+
+    private RoutingMetrics() {
+    }
+
+    public static RoutingMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Enregistre le MBean (une seule fois) et lance la ligne JSON périodique si
+     * {@code coursetoujours.metrics.log} est défini.
+     */
+    public static synchronized void install() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) server.registerMBean(INSTANCE, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Enregistrement JMX impossible", e);
+        }
+        long seconds = Long.getLong("coursetoujours.metrics.log", 0);
+        if (seconds > 0) INSTANCE.startLogging(seconds, System.err::println);
+    }
+
+    /** Début d'une mesure : l'instant courant, ou 0 si les métriques sont désactivées. */
+    static long start() {
+        return INSTANCE.enabled ? System.nanoTime() : 0;
+    }
+
+    static void parsed(long start) {
+        if (start == 0) return;
+        long nanos = System.nanoTime() - start;
+        INSTANCE.graphLoads.increment();
+        INSTANCE.parseNanos.add(nanos);
+        INSTANCE.lastParseNanos = nanos;
+    }
+
+    static void searched(long start, int settledNodes, int relaxedEdges) {
+        if (start == 0) return;
+        INSTANCE.searches.record(System.nanoTime() - start);
+        INSTANCE.settled.add(settledNodes);
+        INSTANCE.relaxed.add(relaxedEdges);
+    }
+
+    static void treeSearched(long start, int settledNodes, int relaxedEdges) {
+        if (start == 0) return;
+        INSTANCE.trees.record(System.nanoTime() - start);
+        INSTANCE.treeSettled.add(settledNodes);
+        INSTANCE.treeRelaxed.add(relaxedEdges);
+    }
+
+    static void toured(long start, long orderingsEvaluated) {
+        if (start == 0) return;
+        INSTANCE.tours.record(System.nanoTime() - start);
+        INSTANCE.orderings.add(orderingsEvaluated);
+    }
+
+    static void routeCache(boolean hit) {
+        if (INSTANCE.enabled) (hit ? INSTANCE.routeHits : INSTANCE.routeMisses).increment();
+    }
+
+    static void treeCache(boolean hit) {
+        if (INSTANCE.enabled) (hit ? INSTANCE.treeHits : INSTANCE.treeMisses).increment();
+    }
+
+    /** Écrit {@link #toJson()} toutes les {@code seconds} secondes, sur un thread démon. */
+    public synchronized void startLogging(long seconds, Consumer<String> out) {
+        stopLogging();
+        logger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "routing-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.scheduleAtFixedRate(() -> out.accept(toJson().toString()), seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopLogging() {
+        if (logger != null) logger.shutdownNow();
+        logger = null;
+    }
+
+    public JSONObject toJson() {
+        return new JSONObject()
+                .put("time", System.currentTimeMillis())
+                .put("enabled", enabled)
+                .put("graphLoads", getGraphLoads())
+                .put("lastParseMs", getLastParseMillis())
+                .put("pointSearches", getPointSearches())
+                .put("searchP50Ms", getSearchP50Millis())
+                .put("searchP95Ms", getSearchP95Millis())
+                .put("searchP99Ms", getSearchP99Millis())
+                .put("searchMaxMs", getSearchMaxMillis())
+                .put("settledPerSearch", getSettledNodesPerSearch())
+                .put("relaxedPerSearch", getRelaxedEdgesPerSearch())
+                .put("treeSearches", getTreeSearches())
+                .put("treeSearchP50Ms", getTreeSearchP50Millis())
+                .put("treeSearchP95Ms", getTreeSearchP95Millis())
+                .put("treeSearchP99Ms", getTreeSearchP99Millis())
+                .put("treeSearchMaxMs", getTreeSearchMaxMillis())
+                .put("settledPerTreeSearch", getSettledNodesPerTreeSearch())
+                .put("relaxedPerTreeSearch", getRelaxedEdgesPerTreeSearch())
+                .put("tours", getTours())
+                .put("tourP50Ms", getTourP50Millis())
+                .put("tourP95Ms", getTourP95Millis())
+                .put("tourP99Ms", getTourP99Millis())
+                .put("tourMaxMs", getTourMaxMillis())
+                .put("orderingsEvaluated", getOrderingsEvaluated())
+                .put("routeCacheHitRate", getRouteCacheHitRate())
+                .put("treeCacheHitRate", getTreeCacheHitRate());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder adder : new LongAdder[]{graphLoads, parseNanos, settled, relaxed, treeSettled, treeRelaxed,
+                orderings, routeHits, routeMisses, treeHits, treeMisses}) {
+            adder.reset();
+        }
+        lastParseNanos = 0;
+        searches.reset();
+        trees.reset();
+        tours.reset();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static double ratio(long part, long total) {
+        return total == 0 ? 0 : part / (double) total;
+    }
+
+    @Override
+    public long getGraphLoads() {
+        return graphLoads.sum();
+    }
+
+    @Override
+    public double getLastParseMillis() {
+        return millis(lastParseNanos);
+    }
+
+    @Override
+    public double getTotalParseMillis() {
+        return millis(parseNanos.sum());
+    }
+
+    @Override
+    public long getPointSearches() {
+        return searches.count();
+    }
+
+    @Override
+    public double getSearchP50Millis() {
+        return millis(searches.percentile(0.50));
+    }
+
+    @Override
+    public double getSearchP95Millis() {
+        return millis(searches.percentile(0.95));
+    }
+
+    @Override
+    public double getSearchP99Millis() {
+        return millis(searches.percentile(0.99));
+    }
+
+    @Override
+    public double getSearchMaxMillis() {
+        return millis(searches.max());
+    }
+
+    @Override
+    public double getSettledNodesPerSearch() {
+        return ratio(settled.sum(), searches.count());
+    }
+
+    @Override
+    public double getRelaxedEdgesPerSearch() {
+        return ratio(relaxed.sum(), searches.count());
+    }
+
+    @Override
+    public long getTreeSearches() {
+        return trees.count();
+    }
+
+    @Override
+    public double getTreeSearchP50Millis() {
+        return millis(trees.percentile(0.50));
+    }
+
+    @Override
+    public double getTreeSearchP95Millis() {
+        return millis(trees.percentile(0.95));
+    }
+
+    @Override
+    public double getTreeSearchP99Millis() {
+        return millis(trees.percentile(0.99));
+    }
+
+    @Override
+    public double getTreeSearchMaxMillis() {
+        return millis(trees.max());
+    }
+
+    @Override
+    public double getSettledNodesPerTreeSearch() {
+        return ratio(treeSettled.sum(), trees.count());
+    }
+
+    @Override
+    public double getRelaxedEdgesPerTreeSearch() {
+        return ratio(treeRelaxed.sum(), trees.count());
+    }
+
+    @Override
+    public long getTours() {
+        return tours.count();
+    }
+
+    @Override
+    public double getTourP50Millis() {
+        return millis(tours.percentile(0.50));
+    }
+
+    @Override
+    public double getTourP95Millis() {
+        return millis(tours.percentile(0.95));
+    }
+
+    @Override
+    public double getTourP99Millis() {
+        return millis(tours.percentile(0.99));
+    }
+
+    @Override
+    public double getTourMaxMillis() {
+        return millis(tours.max());
+    }
+
+    @Override
+    public long getOrderingsEvaluated() {
+        return orderings.sum();
+    }
+
+    @Override
+    public double getRouteCacheHitRate() {
+        long hits = routeHits.sum();
+        return ratio(hits, hits + routeMisses.sum());
+    }
+
+    @Override
+    public double getTreeCacheHitRate() {
+        long hits = treeHits.sum();
+        return ratio(hits, hits + treeMisses.sum());
+    }
+}
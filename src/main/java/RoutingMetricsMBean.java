@@ -0,0 +1,58 @@
+/** Vue JMX de {@link RoutingMetrics} (durées en millisecondes). */
+public interface RoutingMetricsMBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    void reset();
+
+    long getGraphLoads();
+
+    double getLastParseMillis();
+
+    double getTotalParseMillis();
+
+    long getPointSearches();
+
+    double getSearchP50Millis();
+
+    double getSearchP95Millis();
+
+    double getSearchP99Millis();
+
+    double getSearchMaxMillis();
+
+    double getSettledNodesPerSearch();
+
+    double getRelaxedEdgesPerSearch();
+
+    long getTreeSearches();
+
+    double getTreeSearchP50Millis();
+
+    double getTreeSearchP95Millis();
+
+    double getTreeSearchP99Millis();
+
+    double getTreeSearchMaxMillis();
+
+    double getSettledNodesPerTreeSearch();
+
+    double getRelaxedEdgesPerTreeSearch();
+
+    long getTours();
+
+    double getTourP50Millis();
+
+    double getTourP95Millis();
+
+    double getTourP99Millis();
+
+    double getTourMaxMillis();
+
+    long getOrderingsEvaluated();
+
+    double getRouteCacheHitRate();
+
+    double getTreeCacheHitRate();
+}
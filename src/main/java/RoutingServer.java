@@ -0,0 +1,173 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Service HTTP local de routage (bornes, terminaux portables), un thread virtuel par requête.
+ *
+ * <p>{@code POST /route} avec {@code {"entrance": "Entrée A", "exit": "Caisse B", "products": ["Pain", ...]}}
+ * <br>Réponse : {@code {"path": [...], "weight": 12, "legs": [{"from": ..., "to": ..., "weight": 3}, ...]}}
+ *
+ * <p>Usage : {@code java RoutingServer <plan.json|plan.bin> [--port=8080] [--heuristic=ms] [--watch] [--max-snap=distance]}
+ * <br>Avec {@code --watch}, le plan est rechargé à chaud quand son fichier change
+ * ({@link LayoutManager}) ; chaque requête se termine sur le plan avec lequel elle a commencé.
+ * <br>{@code --max-snap} ignore, en les signalant à chaque chargement, les sommets d'allée
+ * trop loin de tout nœud.
+ * <br>Embarqué dans une autre application, lancer la JVM avec {@code -Dsun.net.httpserver.nodelay=true} :
+ * sans TCP_NODELAY, l'algorithme de Nagle ajoute ~40 ms à chaque réponse. La propriété n'est lue
+ * qu'à la création du premier serveur HTTP du processus ; {@link #main} la positionne lui-même.
+ * <br>Métriques (JMX, ligne JSON périodique) : voir {@link RoutingMetrics}.
+ */
+public class RoutingServer {
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Supplier<RoutingEngine> engine;
+
+    public RoutingServer(RoutingEngine engine, int port) throws IOException {
+        this(() -> engine, port);
+    }
+
+    /** {@code engine} est interrogé une fois par requête. */
+    public RoutingServer(Supplier<RoutingEngine> engine, int port) throws IOException {
+        this.engine = engine;
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/route", this::handleRoute);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.close();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleRoute(HttpExchange exchange) throws IOException {
+        // les erreurs sont envoyées avant la fermeture de l'échange
+        try (exchange) {
+            try {
+                route(exchange);
+            } catch (IllegalArgumentException e) {
+                // requête que le moteur refuse telle quelle
+                send(exchange, 400, error(String.valueOf(e.getMessage())));
+            } catch (RuntimeException e) {
+                send(exchange, 500, error(String.valueOf(e.getMessage())));
+            }
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            send(exchange, 405, error("POST attendu"));
+            return;
+        }
+        JSONObject request;
+        List<String> products = new ArrayList<>();
+        try {
+            request = new JSONObject(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            JSONArray array = request.optJSONArray("products");
+            if (array != null) {
+                for (int i = 0; i < array.length(); i++) products.add(array.getString(i));
+            }
+            request.getString("entrance");
+            request.getString("exit");
+        } catch (JSONException e) {
+            send(exchange, 400, error(e.getMessage()));
+            return;
+        }
+
+        Route route = engine.get().route(request.getString("entrance"), request.getString("exit"), products);
+        if (route == null) {
+            send(exchange, 404, error("aucun itinéraire"));
+            return;
+        }
+        send(exchange, 200, toJson(route));
+    }
+
+    static JSONObject toJson(Route route) {
+        JSONArray legs = new JSONArray();
+        for (Route.Leg leg : route.legs) {
+            legs.put(new JSONObject().put("from", leg.from.name).put("to", leg.to.name).put("weight", leg.weight));
+        }
+        return new JSONObject()
+                .put("path", new JSONArray(route.path.stream().map(n -> n.name).toList()))
+                .put("weight", route.weight)
+                .put("legs", legs);
+    }
+
+    private static JSONObject error(String message) {
+        return new JSONObject().put("error", message);
+    }
+
+    private static void send(HttpExchange exchange, int status, JSONObject body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage : java RoutingServer <plan.json|plan.bin> [--port=8080] [--heuristic=ms] [--watch] [--max-snap=distance]");
+            System.exit(1);
+        }
+        // avant tout serveur HTTP : lue une seule fois par processus
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        RoutingMetrics.install();
+        int port = 8080;
+        long heuristicMillis = -1;
+        boolean watch = false;
+        double maxSnap = Double.POSITIVE_INFINITY;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--port=")) port = Integer.parseInt(args[i].substring(7));
+            else if (args[i].startsWith("--heuristic=")) heuristicMillis = Long.parseLong(args[i].substring(12));
+            else if (args[i].equals("--watch")) watch = true;
+            else if (args[i].startsWith("--max-snap=")) maxSnap = Double.parseDouble(args[i].substring(11));
+        }
+
+        Path file = Path.of(args[0]).toAbsolutePath();
+        LayoutManager layouts = watch ? new LayoutManager(file.getParent(), file.getFileName().toString(), maxSnap) : null;
+        GraphData data = layouts != null ? layouts.current().data : GraphData.load(file, maxSnap);
+        data.reportStrays(file.getFileName().toString());
+        // repris par chaque plan rechargé
+        if (heuristicMillis >= 0) data.solver = new HeuristicTourSolver(heuristicMillis);
+
+        RoutingServer server;
+        if (layouts != null) {
+            layouts.addListener(snapshot -> {
+                System.out.println("Plan rechargé : " + snapshot.file.getFileName() + " (version " + snapshot.version + ")");
+                snapshot.data.reportStrays(snapshot.file.getFileName().toString());
+            });
+            server = new RoutingServer(layouts::engine, port);
+        } else {
+            server = new RoutingServer(new RoutingEngine(data), port);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            if (layouts != null) layouts.close();
+        }));
+        server.start();
+        System.out.println("Routage disponible sur http://localhost:" + server.port() + "/route");
+    }
+}
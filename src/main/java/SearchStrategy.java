@@ -0,0 +1,15 @@
+/** Recherche point à point utilisée par {@link GraphData#dijkstra}. */
+public enum SearchStrategy {
+    /** Dijkstra classique, arrêté à la cible. */
+    DIJKSTRA,
+    /** A* guidé par la distance euclidienne ({@link DijkstraSearch#runGuided}). */
+    A_STAR,
+    /** Dijkstra depuis les deux extrémités ({@link BidirectionalSearch}). */
+    BIDIRECTIONAL,
+    /**
+     * Requêtes sur la hiérarchie de contraction installée ({@link GraphData#useHierarchy}),
+     * y compris les distances entre arrêts d'un parcours ; Dijkstra classique tant qu'il
+     * n'y en a pas ou que les poids ont changé depuis sa construction.
+     */
+    CONTRACTION_HIERARCHY
+}
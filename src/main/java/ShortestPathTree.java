@@ -0,0 +1,144 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/** Arbre des plus courts chemins depuis une source, copié depuis une recherche complète. */
+public class ShortestPathTree {
+    private static final int INFINITY = DijkstraSearch.INFINITY;
+    // -1 pour un arbre multi-source
+    public final int source;
+    final int[] dist;
+    final int[] prev;
+    private final CompiledGraph graph;
+
+    ShortestPathTree(CompiledGraph graph, int source, int[] dist, int[] prev) {
+        this.graph = graph;
+        this.source = source;
+        this.dist = dist;
+        this.prev = prev;
+    }
+
+    /**
+     * Arbre équivalent sur {@code updated}, version de ce graphe où seules les arêtes
+     * {@code changed} ont un autre poids. Rien n'est recalculé hors des zones touchées :
+     * une hausse sur une arête de l'arbre invalide le sous-arbre qu'elle porte, réamorcé
+     * depuis ses voisins intacts ; une baisse amorce les nœuds qu'elle rapproche. Un
+     * Dijkstra limité à ces amorces propage ensuite les corrections.
+     */
+    ShortestPathTree repair(CompiledGraph updated, int[] changed) {
+        int n = dist.length;
+        int[] d = dist.clone();
+        int[] p = prev.clone();
+        int[] targets = updated.targets, weights = updated.weights, offsets = updated.offsets;
+        IndexedHeap heap = new IndexedHeap(n);
+
+        // hausses : racines des sous-arbres dont le chemin emprunte une arête alourdie
+        int[] roots = new int[changed.length];
+        int count = 0;
+        for (int e : changed) {
+            int ab = graph.arc(e, 0), ba = graph.arc(e, 1);
+            if (ab < 0 || weights[ab] <= graph.weights[ab]) continue;
+            int a = targets[ba], b = targets[ab], w = graph.weights[ab];
+            if (p[b] == a && d[a] != INFINITY && d[b] == d[a] + w) roots[count++] = b;
+            else if (p[a] == b && d[b] != INFINITY && d[a] == d[b] + w) roots[count++] = a;
+        }
+        if (count > 0) {
+            int[] affected = subtrees(p, roots, count);
+            boolean[] invalid = new boolean[n];
+            for (int v : affected) {
+                invalid[v] = true;
+                d[v] = INFINITY;
+                p[v] = -1;
+            }
+            for (int v : affected) {
+                for (int a = offsets[v]; a < offsets[v + 1]; a++) {
+                    int u = targets[a];
+                    if (invalid[u] || d[u] == INFINITY) continue;
+                    if (d[u] + weights[a] < d[v]) {
+                        d[v] = d[u] + weights[a];
+                        p[v] = u;
+                    }
+                }
+                if (d[v] != INFINITY) heap.push(v, d[v]);
+            }
+        }
+
+        // baisses : l'arête allégée peut raccourcir le chemin vers l'une de ses extrémités
+        for (int e : changed) {
+            int ab = graph.arc(e, 0), ba = graph.arc(e, 1);
+            if (ab < 0 || weights[ab] >= graph.weights[ab]) continue;
+            int a = targets[ba], b = targets[ab], w = weights[ab];
+            if (d[a] != INFINITY && d[a] + w < d[b]) {
+                d[b] = d[a] + w;
+                p[b] = a;
+                heap.push(b, d[b]);
+            } else if (d[b] != INFINITY && d[b] + w < d[a]) {
+                d[a] = d[b] + w;
+                p[a] = b;
+                heap.push(a, d[a]);
+            }
+        }
+
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            int du = d[u];
+            for (int a = offsets[u]; a < offsets[u + 1]; a++) {
+                int v = targets[a];
+                int alt = du + weights[a];
+                if (alt < d[v]) {
+                    d[v] = alt;
+                    p[v] = u;
+                    heap.push(v, alt);
+                }
+            }
+        }
+        return new ShortestPathTree(updated, source, d, p);
+    }
+
+    // nœuds des sous-arbres enracinés en roots[0..count), d'après les prédécesseurs
+    private static int[] subtrees(int[] p, int[] roots, int count) {
+        int n = p.length;
+        int[] first = new int[n + 1];
+        for (int v = 0; v < n; v++) if (p[v] >= 0) first[p[v] + 1]++;
+        for (int v = 0; v < n; v++) first[v + 1] += first[v];
+        int[] children = new int[first[n]];
+        int[] fill = first.clone();
+        for (int v = 0; v < n; v++) if (p[v] >= 0) children[fill[p[v]]++] = v;
+
+        boolean[] seen = new boolean[n];
+        int[] found = new int[n];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (seen[roots[i]]) continue;
+            seen[roots[i]] = true;
+            int start = size;
+            found[size++] = roots[i];
+            for (int k = start; k < size; k++) {
+                int v = found[k];
+                for (int c = first[v]; c < first[v + 1]; c++) {
+                    if (!seen[children[c]]) {
+                        seen[children[c]] = true;
+                        found[size++] = children[c];
+                    }
+                }
+            }
+        }
+        return java.util.Arrays.copyOf(found, size);
+    }
+
+    public int distance(int v) {
+        return dist[v];
+    }
+
+    public boolean reaches(int v) {
+        return dist[v] != DijkstraSearch.INFINITY;
+    }
+
+    /** Chemin source → v, ou null si v n'est pas atteignable. */
+    public List<Node> pathTo(int v) {
+        if (!reaches(v)) return null;
+        List<Node> path = new ArrayList<>();
+        for (int at = v; at >= 0; at = prev[at]) path.add(graph.node(at));
+        java.util.Collections.reverse(path);
+        return path;
+    }
+}
@@ -0,0 +1,110 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Grille uniforme sur {@code Node.lon/lat} pour retrouver le nœud le plus proche
+ * d'un point sans parcourir tous les nœuds. En cas d'égalité, le premier nœud de
+ * la liste l'emporte, comme l'ancien parcours linéaire.
+ */
+public class SpatialIndex {
+    private final List<Node> nodes;
+    private final double minLon, minLat, cellSize;
+    private final int cols, rows;
+    private final int[] cellStart; // CSR : nœuds de la cellule c dans cellNodes[cellStart[c]..cellStart[c+1])
+    private final int[] cellNodes;
+
+    public SpatialIndex(List<Node> nodes) {
+        this.nodes = nodes;
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        for (Node n : nodes) {
+            x0 = Math.min(x0, n.lon);
+            y0 = Math.min(y0, n.lat);
+            x1 = Math.max(x1, n.lon);
+            y1 = Math.max(y1, n.lat);
+        }
+        if (nodes.isEmpty()) {
+            x0 = y0 = x1 = y1 = 0;
+        }
+        minLon = x0;
+        minLat = y0;
+        // environ un nœud par cellule
+        double span = Math.max(x1 - x0, y1 - y0);
+        int side = Math.max(1, (int) Math.ceil(Math.sqrt(nodes.size())));
+        cellSize = span > 0 ? span / side : 1;
+        cols = Math.max(1, (int) ((x1 - x0) / cellSize) + 1);
+        rows = Math.max(1, (int) ((y1 - y0) / cellSize) + 1);
+
+        cellStart = new int[cols * rows + 1];
+        int[] cellOf = new int[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            cellOf[i] = cell(col(nodes.get(i).lon), row(nodes.get(i).lat));
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < cols * rows; c++) cellStart[c + 1] += cellStart[c];
+        cellNodes = new int[nodes.size()];
+        int[] fill = Arrays.copyOf(cellStart, cols * rows);
+        for (int i = 0; i < nodes.size(); i++) cellNodes[fill[cellOf[i]]++] = i;
+    }
+
+    private int col(double lon) {
+        return Math.min(cols - 1, Math.max(0, (int) ((lon - minLon) / cellSize)));
+    }
+
+    private int row(double lat) {
+        return Math.min(rows - 1, Math.max(0, (int) ((lat - minLat) / cellSize)));
+    }
+
+    private int cell(int col, int row) {
+        return row * cols + col;
+    }
+
+    public Node nearest(double lon, double lat) {
+        return nearest(lon, lat, Double.POSITIVE_INFINITY);
+    }
+
+    /** Nœud le plus proche de (lon, lat), ou null si aucun n'est à moins de {@code maxDistance}. */
+    public Node nearest(double lon, double lat, double maxDistance) {
+        if (nodes.isEmpty()) return null;
+        int cx = col(lon), cy = row(lat);
+        int best = -1;
+        double bestDist = Double.POSITIVE_INFINITY;
+
+        // anneaux de cellules autour du point, jusqu'à ce qu'aucun ne puisse faire mieux
+        int maxRing = Math.max(cols, rows);
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (best >= 0 && ringDistance(lon, lat, cx, cy, ring) > bestDist) break;
+            if (ringDistance(lon, lat, cx, cy, ring) > maxDistance) break;
+            for (int y = cy - ring; y <= cy + ring; y++) {
+                if (y < 0 || y >= rows) continue;
+                boolean edgeRow = y == cy - ring || y == cy + ring;
+                for (int x = cx - ring; x <= cx + ring; x += edgeRow ? 1 : 2 * ring) {
+                    if (x >= 0 && x < cols) {
+                        int c = cell(x, y);
+                        for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                            int i = cellNodes[k];
+                            Node n = nodes.get(i);
+                            double d = Math.hypot(n.lon - lon, n.lat - lat);
+                            if (d < bestDist || (d == bestDist && i < best)) {
+                                bestDist = d;
+                                best = i;
+                            }
+                        }
+                    }
+                    if (ring == 0) break;
+                }
+            }
+        }
+        return best >= 0 && bestDist <= maxDistance ? nodes.get(best) : null;
+    }
+
+    // distance minimale entre le point et une cellule de l'anneau donné
+    private double ringDistance(double lon, double lat, int cx, int cy, int ring) {
+        if (ring == 0) return 0;
+        double left = lon - (minLon + (cx - ring + 1) * cellSize);
+        double right = (minLon + (cx + ring) * cellSize) - lon;
+        double down = lat - (minLat + (cy - ring + 1) * cellSize);
+        double up = (minLat + (cy + ring) * cellSize) - lat;
+        return Math.max(0, Math.min(Math.min(left, right), Math.min(down, up)));
+    }
+}
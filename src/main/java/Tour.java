@@ -0,0 +1,18 @@
+import java.util.List;
+
+/** Résultat d'un solveur : chemin complet, coût total et nombre d'itérations effectuées. */
+public class Tour {
+    public final List<Node> path;
+    public final int cost;
+    public final long iterations;
+
+    public Tour(List<Node> path, int cost) {
+        this(path, cost, 0);
+    }
+
+    public Tour(List<Node> path, int cost, long iterations) {
+        this.path = path;
+        this.cost = cost;
+        this.iterations = iterations;
+    }
+}
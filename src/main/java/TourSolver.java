@@ -0,0 +1,58 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/** Stratégie d'ordonnancement des nœuds obligatoires pour {@link GraphData#getPath}. */
+public interface TourSolver {
+
+    /** Retourne le meilleur parcours start → mustVisit → end trouvé, ou null s'il n'en existe pas. */
+    Tour solve(GraphData graph, Node start, Node end, List<Node> mustVisit);
+
+    /**
+     * Variante progressive : {@code listener} reçoit chaque meilleur parcours trouvé en cours de route.
+     * Interrompre le thread appelant annule la recherche ({@link CancellationException}).
+     */
+    default Tour solve(GraphData graph, Node start, Node end, List<Node> mustVisit, TourListener listener) {
+        Tour tour = solve(graph, start, end, mustVisit);
+        if (tour != null) listener.improved(tour);
+        return tour;
+    }
+
+    /**
+     * TSP généralisé : chaque groupe est satisfait par la visite de l'un quelconque de ses
+     * nœuds. Par défaut, résout chaque combinaison de représentants et garde la meilleure.
+     */
+    default Tour solveGroups(GraphData graph, Node start, Node end, List<List<Node>> groups, TourListener listener) {
+        int[] choice = new int[groups.size()];
+        Tour best = null;
+        while (true) {
+            checkCancelled();
+            List<Node> mustVisit = new ArrayList<>(groups.size());
+            for (int g = 0; g < choice.length; g++) mustVisit.add(groups.get(g).get(choice[g]));
+            Tour tour = solve(graph, start, end, mustVisit);
+            if (tour != null && (best == null || tour.cost < best.cost)) {
+                best = tour;
+                listener.improved(best);
+            }
+            // combinaison suivante, comme un compteur en base variable
+            int g = 0;
+            while (g < choice.length && ++choice[g] == groups.get(g).size()) choice[g++] = 0;
+            if (g == choice.length) return best;
+        }
+    }
+
+    /** Un groupe par nœud : chacun doit être visité. */
+    static List<List<Node>> singletons(List<Node> mustVisit) {
+        List<List<Node>> groups = new ArrayList<>(mustVisit.size());
+        for (Node node : mustVisit) groups.add(List.of(node));
+        return groups;
+    }
+
+    static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) throw new CancellationException("Recherche annulée");
+    }
+
+    interface TourListener {
+        void improved(Tour tour);
+    }
+}
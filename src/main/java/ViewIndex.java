@@ -0,0 +1,231 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Index d'affichage pour le zoom : grilles uniformes sur {@code lon/lat}, de plus en plus
+ * grossières. Niveau 0 : les nœuds et les arêtes eux-mêmes ; niveau l : cellules de côté
+ * double du niveau précédent, chaque cellule non vide devenant un agrégat (barycentre et
+ * nombre de nœuds) et les arêtes entre deux agrégats distincts une seule liaison. Une
+ * requête sur un rectangle ne parcourt que les cellules qui le recouvrent.
+ */
+public class ViewIndex {
+    // un segment qui recouvre plus de cellules est rangé à part et toujours proposé
+    private static final int MAX_SEGMENT_CELLS = 64;
+    private final Level[] levels;
+
+    public ViewIndex(GraphData data) {
+        CompiledGraph g = data.compiled();
+        int n = data.nodes.size();
+        double[] x = new double[n], y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = data.nodes.get(i).lon;
+            y[i] = data.nodes.get(i).lat;
+        }
+        int[] from = new int[data.edges.size()], to = new int[data.edges.size()];
+        for (int e = 0; e < from.length; e++) {
+            from[e] = g.id(data.edges.get(e).from);
+            to[e] = g.id(data.edges.get(e).to);
+            if (from[e] < 0 || to[e] < 0) from[e] = to[e] = -1;
+        }
+
+        // niveau 0 : environ un nœud par cellule, comme SpatialIndex
+        double span = Math.max(data.maxLon - data.minLon, data.maxLat - data.minLat);
+        int side = Math.max(1, (int) Math.ceil(Math.sqrt(n)));
+        double cellSize = span > 0 ? span / side : 1;
+        int[] count = new int[n];
+        Arrays.fill(count, 1);
+        Level level = new Level(cellSize, data.minLon, data.minLat, data.maxLon, data.maxLat, x, y, count, from, to);
+        Level[] built = {level};
+        int[] cluster = new int[n];
+        for (int i = 0; i < n; i++) cluster[i] = i;
+        while (level.cols * level.rows > 4 && built.length < 32) {
+            cellSize *= 2;
+            level = aggregate(level, cellSize, cluster, data, from, to);
+            built = Arrays.copyOf(built, built.length + 1);
+            built[built.length - 1] = level;
+        }
+        levels = built;
+    }
+
+    // niveau suivant : un agrégat par cellule non vide ; cluster passe de l'ancien au nouveau niveau
+    private static Level aggregate(Level previous, double cellSize, int[] cluster, GraphData data,
+                                   int[] from, int[] to) {
+        int cols = Math.max(1, (int) ((data.maxLon - data.minLon) / cellSize) + 1);
+        int rows = Math.max(1, (int) ((data.maxLat - data.minLat) / cellSize) + 1);
+        int[] cellCluster = new int[cols * rows];
+        Arrays.fill(cellCluster, -1);
+        int[] previousToNew = new int[previous.x.length];
+        int clusters = 0;
+        double[] sumX = new double[previous.x.length], sumY = new double[previous.x.length];
+        int[] count = new int[previous.x.length];
+        for (int p = 0; p < previous.x.length; p++) {
+            int col = Math.min(cols - 1, Math.max(0, (int) ((previous.x[p] - data.minLon) / cellSize)));
+            int row = Math.min(rows - 1, Math.max(0, (int) ((previous.y[p] - data.minLat) / cellSize)));
+            int c = row * cols + col;
+            if (cellCluster[c] < 0) cellCluster[c] = clusters++;
+            int k = cellCluster[c];
+            previousToNew[p] = k;
+            sumX[k] += previous.x[p] * previous.count[p];
+            sumY[k] += previous.y[p] * previous.count[p];
+            count[k] += previous.count[p];
+        }
+        double[] x = new double[clusters], y = new double[clusters];
+        for (int k = 0; k < clusters; k++) {
+            x[k] = sumX[k] / count[k];
+            y[k] = sumY[k] / count[k];
+        }
+        for (int i = 0; i < cluster.length; i++) cluster[i] = previousToNew[cluster[i]];
+
+        // liaisons entre agrégats distincts, sans doublon
+        long[] keys = new long[from.length];
+        int links = 0;
+        for (int e = 0; e < from.length; e++) {
+            if (from[e] < 0) continue;
+            int a = cluster[from[e]], b = cluster[to[e]];
+            if (a == b) continue;
+            keys[links++] = (long) Math.min(a, b) * clusters + Math.max(a, b);
+        }
+        Arrays.sort(keys, 0, links);
+        int unique = 0;
+        for (int i = 0; i < links; i++) {
+            if (unique == 0 || keys[i] != keys[unique - 1]) keys[unique++] = keys[i];
+        }
+        int[] segA = new int[unique], segB = new int[unique];
+        for (int i = 0; i < unique; i++) {
+            segA[i] = (int) (keys[i] / clusters);
+            segB[i] = (int) (keys[i] % clusters);
+        }
+        return new Level(cellSize, data.minLon, data.minLat, data.maxLon, data.maxLat,
+                x, y, Arrays.copyOf(count, clusters), segA, segB);
+    }
+
+    /** Nombre de niveaux ; le niveau 0 est le plan lui-même. */
+    public int levels() {
+        return levels.length;
+    }
+
+    public Level level(int l) {
+        return levels[l];
+    }
+
+    /**
+     * Un niveau : points (nœuds ou agrégats) et segments (arêtes ou liaisons, -1 aux deux
+     * extrémités pour une arête ignorée), rangés par cellule. Au niveau 0, le point i est le
+     * nœud i de {@link GraphData#nodes} et le segment e l'arête e de {@link GraphData#edges}.
+     * Les requêtes réutilisent un tampon : un seul thread (celui de l'affichage).
+     */
+    public static final class Level {
+        public final double cellSize;
+        public final double[] x, y;
+        // nombre de nœuds représentés par chaque point
+        public final int[] count;
+        public final int[] segA, segB;
+        private final double minX, minY;
+        private final int cols, rows;
+        private final int[] pointStart, pointItems, segStart, segItems, longSegments;
+        // segments déjà proposés par la requête courante (présents dans plusieurs cellules)
+        private final int[] stamp;
+        private int generation;
+
+        Level(double cellSize, double minX, double minY, double maxX, double maxY,
+              double[] x, double[] y, int[] count, int[] segA, int[] segB) {
+            this.cellSize = cellSize;
+            this.minX = minX;
+            this.minY = minY;
+            this.x = x;
+            this.y = y;
+            this.count = count;
+            this.segA = segA;
+            this.segB = segB;
+            cols = Math.max(1, (int) ((maxX - minX) / cellSize) + 1);
+            rows = Math.max(1, (int) ((maxY - minY) / cellSize) + 1);
+
+            pointStart = new int[cols * rows + 1];
+            int[] cellOf = new int[x.length];
+            for (int p = 0; p < x.length; p++) {
+                cellOf[p] = row(y[p]) * cols + col(x[p]);
+                pointStart[cellOf[p] + 1]++;
+            }
+            for (int c = 0; c < cols * rows; c++) pointStart[c + 1] += pointStart[c];
+            pointItems = new int[x.length];
+            int[] fill = Arrays.copyOf(pointStart, cols * rows);
+            for (int p = 0; p < x.length; p++) pointItems[fill[cellOf[p]]++] = p;
+
+            // segments : une entrée par cellule de leur rectangle englobant, deux passes
+            segStart = new int[cols * rows + 1];
+            int longCount = 0;
+            for (int s = 0; s < segA.length; s++) {
+                if (segA[s] < 0) continue;
+                int c0 = col(Math.min(x[segA[s]], x[segB[s]])), c1 = col(Math.max(x[segA[s]], x[segB[s]]));
+                int r0 = row(Math.min(y[segA[s]], y[segB[s]])), r1 = row(Math.max(y[segA[s]], y[segB[s]]));
+                if ((c1 - c0 + 1) * (r1 - r0 + 1) > MAX_SEGMENT_CELLS) {
+                    longCount++;
+                    continue;
+                }
+                for (int r = r0; r <= r1; r++) {
+                    for (int c = c0; c <= c1; c++) segStart[r * cols + c + 1]++;
+                }
+            }
+            for (int c = 0; c < cols * rows; c++) segStart[c + 1] += segStart[c];
+            segItems = new int[segStart[cols * rows]];
+            longSegments = new int[longCount];
+            fill = Arrays.copyOf(segStart, cols * rows);
+            longCount = 0;
+            for (int s = 0; s < segA.length; s++) {
+                if (segA[s] < 0) continue;
+                int c0 = col(Math.min(x[segA[s]], x[segB[s]])), c1 = col(Math.max(x[segA[s]], x[segB[s]]));
+                int r0 = row(Math.min(y[segA[s]], y[segB[s]])), r1 = row(Math.max(y[segA[s]], y[segB[s]]));
+                if ((c1 - c0 + 1) * (r1 - r0 + 1) > MAX_SEGMENT_CELLS) {
+                    longSegments[longCount++] = s;
+                    continue;
+                }
+                for (int r = r0; r <= r1; r++) {
+                    for (int c = c0; c <= c1; c++) segItems[fill[r * cols + c]++] = s;
+                }
+            }
+            stamp = new int[segA.length];
+        }
+
+        private int col(double v) {
+            return Math.min(cols - 1, Math.max(0, (int) ((v - minX) / cellSize)));
+        }
+
+        private int row(double v) {
+            return Math.min(rows - 1, Math.max(0, (int) ((v - minY) / cellSize)));
+        }
+
+        /** Points des cellules qui recouvrent le rectangle (bornes du plan, dans n'importe quel ordre). */
+        public void points(double x0, double y0, double x1, double y1, IntConsumer visitor) {
+            int c0 = col(Math.min(x0, x1)), c1 = col(Math.max(x0, x1));
+            int r0 = row(Math.min(y0, y1)), r1 = row(Math.max(y0, y1));
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    int cell = r * cols + c;
+                    for (int k = pointStart[cell]; k < pointStart[cell + 1]; k++) visitor.accept(pointItems[k]);
+                }
+            }
+        }
+
+        /** Segments dont le rectangle englobant touche une cellule du rectangle, chacun une fois. */
+        public void segments(double x0, double y0, double x1, double y1, IntConsumer visitor) {
+            if (++generation == 0) {
+                Arrays.fill(stamp, 0);
+                generation = 1;
+            }
+            int c0 = col(Math.min(x0, x1)), c1 = col(Math.max(x0, x1));
+            int r0 = row(Math.min(y0, y1)), r1 = row(Math.max(y0, y1));
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    int cell = r * cols + c;
+                    for (int k = segStart[cell]; k < segStart[cell + 1]; k++) {
+                        int s = segItems[k];
+                        if (stamp[s] == generation) continue;
+                        stamp[s] = generation;
+                        visitor.accept(s);
+                    }
+                }
+            }
+            for (int s : longSegments) visitor.accept(s);
+        }
+    }
+}